@@ -0,0 +1,74 @@
+package sh.joey.mc.permissions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The hot check path: {@link ResolvedPermissions#hasPermission(String)} against a player
+ * in three synthetic groups.
+ * <p>
+ * The {@code exact}, {@code wildcard} and {@code miss} benchmarks cycle through many
+ * distinct targets so most checks fall through the matcher's memo and walk the layers.
+ * {@code repeated} checks one string over and over, which is what Bukkit usually does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HasPermissionBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int grants;
+
+    private ResolvedPermissions resolved;
+    private String[] exactTargets;
+    private String[] wildcardTargets;
+    private String[] missTargets;
+    private int next;
+
+    @Setup
+    public void setup() {
+        resolved = SyntheticGrants.player(SyntheticGrants.catalog(grants)).forWorld(SyntheticGrants.WORLD);
+        exactTargets = SyntheticGrants.exactTargets(grants);
+        wildcardTargets = SyntheticGrants.wildcardTargets(grants);
+        missTargets = SyntheticGrants.missTargets(grants);
+    }
+
+    @Benchmark
+    public boolean exact() {
+        return resolved.hasPermission(pick(exactTargets));
+    }
+
+    @Benchmark
+    public boolean wildcard() {
+        return resolved.hasPermission(pick(wildcardTargets));
+    }
+
+    @Benchmark
+    public boolean miss() {
+        return resolved.hasPermission(pick(missTargets));
+    }
+
+    @Benchmark
+    public boolean repeated() {
+        return resolved.hasPermission(exactTargets[0]);
+    }
+
+    private String pick(String[] targets) {
+        next = (next + 1) & Integer.MAX_VALUE;
+        return targets[next % targets.length];
+    }
+}
@@ -0,0 +1,70 @@
+package sh.joey.mc.permissions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and token matching of individual permission strings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParsedPermissionBenchmark {
+
+    private ParsedPermission wildcard;
+    private ParsedPermission exact;
+    private ParsedPermission deepTarget;
+    private ParsedPermission otherTarget;
+
+    @Setup
+    public void setup() {
+        wildcard = ParsedPermission.parse("worldedit.selection.*").orElseThrow();
+        exact = ParsedPermission.parse("worldedit.selection.pos").orElseThrow();
+        deepTarget = ParsedPermission.parse("worldedit.selection.pos").orElseThrow();
+        otherTarget = ParsedPermission.parse("essentials.home.set").orElseThrow();
+    }
+
+    @Benchmark
+    public Optional<ParsedPermission> parseShort() {
+        return ParsedPermission.parse("home.set");
+    }
+
+    @Benchmark
+    public Optional<ParsedPermission> parseLong() {
+        return ParsedPermission.parse("worldedit.region.stack.extended.count");
+    }
+
+    @Benchmark
+    public Optional<ParsedPermission> parseWildcard() {
+        return ParsedPermission.parse("worldedit.selection.*");
+    }
+
+    @Benchmark
+    public boolean matchesExact() {
+        return exact.matches(deepTarget);
+    }
+
+    @Benchmark
+    public boolean matchesWildcard() {
+        return wildcard.matches(deepTarget);
+    }
+
+    @Benchmark
+    public boolean matchesMiss() {
+        return wildcard.matches(otherTarget);
+    }
+}
@@ -0,0 +1,69 @@
+package sh.joey.mc.permissions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grant resolution: collapsing grants for a world with
+ * {@link PermissionResolver#resolveGrants(List, java.util.UUID)}, and projecting a
+ * whole player into a world (which also compiles or reuses the group layers).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResolveGrantsBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int grants;
+
+    private List<PermissionGrant> grantList;
+    private GroupCatalog catalog;
+
+    @Setup
+    public void setup() {
+        grantList = SyntheticGrants.grants(grants);
+        catalog = SyntheticGrants.catalog(grants);
+    }
+
+    @Benchmark
+    public Map<String, Boolean> resolveGrants() {
+        return PermissionResolver.resolveGrants(grantList, SyntheticGrants.WORLD);
+    }
+
+    @Benchmark
+    public PermissionLayer compileLayer() {
+        return PermissionLayer.of(PermissionResolver.resolveGrants(grantList, SyntheticGrants.WORLD));
+    }
+
+    /**
+     * Projection with warm group layers - the cost of a player joining or changing world.
+     */
+    @Benchmark
+    public ResolvedPermissions projectPlayer() {
+        return SyntheticGrants.player(catalog).forWorld(SyntheticGrants.WORLD);
+    }
+
+    /**
+     * Projection against a fresh catalog - the cost after a group edit.
+     */
+    @Benchmark
+    public ResolvedPermissions projectPlayerColdCatalog() {
+        return SyntheticGrants.player(GroupCatalog.of(catalog.all())).forWorld(SyntheticGrants.WORLD);
+    }
+}
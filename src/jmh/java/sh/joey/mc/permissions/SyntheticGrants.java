@@ -0,0 +1,107 @@
+package sh.joey.mc.permissions;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Deterministic synthetic permission data for benchmarks.
+ * <p>
+ * Grants look like real plugin nodes ({@code plugin3.feature12.use}) with roughly
+ * one in ten being a wildcard ({@code plugin3.feature12.*}) and a few world-specific
+ * and denied entries, so every resolution and matching branch is exercised.
+ */
+final class SyntheticGrants {
+
+    static final UUID WORLD = new UUID(0, 1);
+    static final UUID OTHER_WORLD = new UUID(0, 2);
+
+    private static final long SEED = 0x5eed;
+
+    private SyntheticGrants() {}
+
+    /**
+     * Returns {@code count} grants with priorities descending from {@code count}.
+     */
+    static List<PermissionGrant> grants(int count) {
+        Random random = new Random(SEED + count);
+        List<PermissionGrant> grants = new ArrayList<>(count);
+        int plugins = Math.max(1, count / 20);
+
+        for (int i = 0; i < count; i++) {
+            String base = "plugin" + (i % plugins) + ".feature" + i;
+            String permission = i % 10 == 9 ? base + ".*" : base + ".use";
+            UUID world = i % 7 == 6 ? (random.nextBoolean() ? WORLD : OTHER_WORLD) : null;
+            boolean state = i % 13 != 12;
+            grants.add(PermissionGrant.of(new UUID(1, i), permission, world, state, count - i));
+        }
+        return grants;
+    }
+
+    /**
+     * Splits {@code count} grants across a default group and two explicit groups.
+     */
+    static GroupCatalog catalog(int count) {
+        List<PermissionGrant> grants = grants(count);
+        int third = count / 3;
+        return GroupCatalog.of(List.of(
+                group("default", 0, true, grants.subList(0, third)),
+                group("member", 10, false, grants.subList(third, 2 * third)),
+                group("admin", 100, false, grants.subList(2 * third, count))
+        ));
+    }
+
+    static PlayerPermissions player(GroupCatalog catalog) {
+        return new PlayerPermissions(
+                new UUID(2, 0),
+                PermissibleAttributes.EMPTY,
+                catalog.groupsFor(List.of("member", "admin")),
+                List.of(),
+                catalog
+        );
+    }
+
+    /**
+     * Exact permissions granted by {@link #grants(int)} (non-wildcard nodes).
+     */
+    static String[] exactTargets(int count) {
+        List<String> targets = new ArrayList<>();
+        int plugins = Math.max(1, count / 20);
+        for (int i = 0; i < count; i++) {
+            if (i % 10 != 9) {
+                targets.add("plugin" + (i % plugins) + ".feature" + i + ".use");
+            }
+        }
+        return targets.toArray(String[]::new);
+    }
+
+    /**
+     * Permissions only reachable through a wildcard grant from {@link #grants(int)}.
+     */
+    static String[] wildcardTargets(int count) {
+        List<String> targets = new ArrayList<>();
+        int plugins = Math.max(1, count / 20);
+        for (int i = 9; i < count; i += 10) {
+            targets.add("plugin" + (i % plugins) + ".feature" + i + ".sub.node");
+        }
+        return targets.toArray(String[]::new);
+    }
+
+    /**
+     * Permissions no grant matches.
+     */
+    static String[] missTargets(int count) {
+        String[] targets = new String[Math.max(16, count)];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = "otherplugin.command" + i + ".use";
+        }
+        return targets;
+    }
+
+    private static Group group(String name, int priority, boolean isDefault, List<PermissionGrant> grants) {
+        Instant now = Instant.EPOCH;
+        return new Group(name, name, priority, isDefault, PermissibleAttributes.EMPTY, List.copyOf(grants), now, now);
+    }
+}
@@ -0,0 +1,115 @@
+package sh.joey.mc.storage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import sh.joey.mc.home.HomeStorage;
+import sh.joey.mc.permissions.PermissionStorage;
+import sh.joey.mc.session.PlayerSessionStorage;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * End-to-end latency of the hottest storage reads (join lookups, permission loads,
+ * /home) through {@link StorageService}, by pgjdbc {@code prepareThreshold}:
+ * 5 is the driver default, 1 prepares server-side on first use, 0 never does.
+ * <p>
+ * Needs a local Postgres that the plugin has already migrated, configured through
+ * {@code BENCH_DB_HOST}, {@code BENCH_DB_PORT}, {@code BENCH_DB_NAME}, {@code BENCH_DB_USER}
+ * and {@code BENCH_DB_PASSWORD} (environment variables, so the forked JVMs see them).
+ * Reads use the first player found in {@code player_sessions}.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatementCacheBenchmark {
+
+    @Param({"5", "1", "0"})
+    public int prepareThreshold;
+
+    private DatabaseService database;
+    private DatabaseExecutor executor;
+    private PlayerSessionStorage sessions;
+    private PermissionStorage permissions;
+    private HomeStorage homes;
+    private UUID playerId;
+
+    @Setup(org.openjdk.jmh.annotations.Level.Trial)
+    public void setup() {
+        Logger logger = Logger.getLogger("StatementCacheBenchmark");
+        logger.setLevel(Level.WARNING);
+
+        var config = new DatabaseConfig(
+                env("BENCH_DB_HOST", "localhost"),
+                Integer.parseInt(env("BENCH_DB_PORT", "5432")),
+                env("BENCH_DB_NAME", "minecraft"),
+                env("BENCH_DB_USER", "minecraft"),
+                env("BENCH_DB_PASSWORD", ""),
+                3, false, -1, 256, false,
+                prepareThreshold, 256, 5,
+                "", 5432, 0, 0
+        );
+        database = new DatabaseService(logger);
+        database.initialize(config);
+        executor = new DatabaseExecutor(config, logger);
+        StorageService storage = new StorageService(database, executor, logger);
+
+        sessions = new PlayerSessionStorage(storage);
+        permissions = new PermissionStorage(storage);
+        homes = new HomeStorage(storage);
+        playerId = storage.<UUID>queryMaybe(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT player_id FROM player_sessions LIMIT 1");
+                 ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getObject(1, UUID.class) : null;
+            }
+        }).blockingGet(UUID.randomUUID());
+    }
+
+    @TearDown(org.openjdk.jmh.annotations.Level.Trial)
+    public void tearDown() {
+        executor.dispose();
+        database.dispose();
+    }
+
+    private static String env(String name, String fallback) {
+        String value = System.getenv(name);
+        return value != null ? value : fallback;
+    }
+
+    @Benchmark
+    public Object findUsernameById() {
+        return sessions.findUsernameById(playerId).blockingGet("");
+    }
+
+    @Benchmark
+    public Object playerPermissions() {
+        return permissions.getPlayerPermissions(playerId).toList().blockingGet();
+    }
+
+    @Benchmark
+    public Object playerGroups() {
+        return permissions.getPlayerGroups(playerId).toList().blockingGet();
+    }
+
+    @Benchmark
+    public Object homeList() {
+        return homes.getHomes(playerId).toList().blockingGet();
+    }
+}
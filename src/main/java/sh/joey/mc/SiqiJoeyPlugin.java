@@ -7,8 +7,10 @@ import org.bukkit.event.Event;
 import org.bukkit.event.EventPriority;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.Nullable;
 import sh.joey.mc.rx.EventObservable;
 
+import java.time.Duration;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import sh.joey.mc.bossbar.BiomeChangeProvider;
@@ -32,9 +34,14 @@ import sh.joey.mc.session.OnTimeCommand;
 import sh.joey.mc.session.PlayerSessionStorage;
 import sh.joey.mc.session.PlayerSessionTracker;
 import sh.joey.mc.session.WhoisCommand;
+import sh.joey.mc.storage.BlobStore;
 import sh.joey.mc.storage.DatabaseConfig;
+import sh.joey.mc.storage.DatabaseExecutor;
+import sh.joey.mc.storage.DbStatsCommand;
 import sh.joey.mc.storage.DatabaseService;
+import sh.joey.mc.storage.InvalidationBus;
 import sh.joey.mc.storage.MigrationRunner;
+import sh.joey.mc.storage.PartitionMaintenance;
 import sh.joey.mc.storage.StorageService;
 import sh.joey.mc.confirm.ConfirmationManager;
 import sh.joey.mc.confirm.ConfirmCommands;
@@ -59,11 +66,13 @@ import sh.joey.mc.multiworld.WorldManager;
 import sh.joey.mc.multiworld.WorldPositionTracker;
 import sh.joey.mc.multiworld.WorldsConfig;
 import sh.joey.mc.permissions.DisplayManager;
+import sh.joey.mc.permissions.GroupCatalogCache;
 import sh.joey.mc.permissions.PermissionAttacher;
 import sh.joey.mc.permissions.PermissionCache;
 import sh.joey.mc.permissions.PermissionResolver;
 import sh.joey.mc.permissions.PermissionStorage;
 import sh.joey.mc.permissions.cmd.PermCommand;
+import sh.joey.mc.permissions.cmd.PermEffects;
 import sh.joey.mc.utility.ClearCommand;
 import sh.joey.mc.utility.GiveCommand;
 import sh.joey.mc.utility.ItemCommand;
@@ -110,8 +119,13 @@ import sh.joey.mc.antitroll.AntiTrollManager;
 @SuppressWarnings("unused")
 public final class SiqiJoeyPlugin extends JavaPlugin {
 
+    private static final long WRITE_DRAIN_TIMEOUT_SECONDS = 5;
+
     private BukkitSchedulers schedulers;
     private DatabaseService database;
+    private DatabaseExecutor databaseExecutor;
+    private @Nullable DatabaseExecutor replicaExecutor;
+    private StorageService storageService;
     private final CompositeDisposable components = new CompositeDisposable();
 
     @Override
@@ -128,8 +142,20 @@ public final class SiqiJoeyPlugin extends JavaPlugin {
         var migrationRunner = new MigrationRunner(this, database);
         migrationRunner.run();
 
-        // Create storage service
-        var storageService = new StorageService(database);
+        // Create storage service (executors disposed separately in onDisable, before the pools)
+        databaseExecutor = new DatabaseExecutor(dbConfig, getLogger());
+        replicaExecutor = dbConfig.hasReplica() ? DatabaseExecutor.forReplica(dbConfig, getLogger()) : null;
+        storageService = new StorageService(database, databaseExecutor, replicaExecutor,
+                Duration.ofMillis(dbConfig.replicaStickyMillis()), getLogger());
+        var blobStore = new BlobStore();
+        components.add(CmdExecutor.register(this, new DbStatsCommand(storageService, blobStore)));
+
+        // Cache invalidation between servers sharing the database (listens on its own connection)
+        var invalidationBus = new InvalidationBus(database, storageService, mainScheduler(), getLogger());
+        components.add(invalidationBus);
+
+        // Monthly partitions for player_sessions and private_messages
+        components.add(new PartitionMaintenance(this, storageService));
 
         // Player session tracking (early - for player ID lookups)
         var playerSessionStorage = new PlayerSessionStorage(storageService);
@@ -139,7 +165,7 @@ public final class SiqiJoeyPlugin extends JavaPlugin {
         // Nickname system (after session storage, before display systems)
         var nicknameStorage = new NicknameStorage(storageService);
         var nicknameValidator = new NicknameValidator(playerSessionStorage, nicknameStorage);
-        var nicknameManager = new NicknameManager(this, nicknameStorage);
+        var nicknameManager = new NicknameManager(this, nicknameStorage, invalidationBus);
         components.add(nicknameManager);
         components.add(CmdExecutor.register(this,
                 new NickCommand(this, playerSessionStorage, nicknameValidator, nicknameManager)));
@@ -157,7 +183,8 @@ public final class SiqiJoeyPlugin extends JavaPlugin {
 
         // Private messaging system
         var messageConfig = MessageConfig.load(this);
-        var privateMessageStorage = new PrivateMessageStorage(storageService);
+        var privateMessageStorage = new PrivateMessageStorage(storageService,
+                Duration.ofDays(messageConfig.unreadMaxAgeDays()));
         var privateMessageManager = new PrivateMessageManager(this, privateMessageStorage, messageConfig, playerResolver);
         components.add(privateMessageManager);
         components.add(CmdExecutor.register(this, new MsgCommand(this, playerResolver, privateMessageManager)));
@@ -165,16 +192,20 @@ public final class SiqiJoeyPlugin extends JavaPlugin {
 
         // Permission system
         var permissionStorage = new PermissionStorage(storageService);
-        var permissionResolver = new PermissionResolver(permissionStorage);
+        var groupCatalog = new GroupCatalogCache(permissionStorage);
+        var permissionResolver = new PermissionResolver(permissionStorage, groupCatalog);
         var permissionCache = new PermissionCache(this, permissionResolver);
         components.add(permissionCache);
         var permissionAttacher = new PermissionAttacher(this, permissionCache);
         components.add(permissionAttacher);
         var displayManager = new DisplayManager(this, permissionCache);
         components.add(displayManager);
+        var permEffects = new PermEffects(permissionCache, groupCatalog, permissionAttacher, displayManager,
+                invalidationBus, getLogger());
+        components.add(permEffects);
         components.add(CmdExecutor.register(this,
                 new PermCommand(this, permissionStorage, playerSessionStorage,
-                        permissionCache, permissionAttacher, displayManager)));
+                        permissionCache, groupCatalog, permissionAttacher, permEffects)));
 
         // Boss bar system with priority-based providers
         var bossBarManager = new BossBarManager(this);
@@ -209,14 +240,32 @@ public final class SiqiJoeyPlugin extends JavaPlugin {
         var worldsConfig = WorldsConfig.load(this);
 
         // Multi-world system (moved earlier - needed for admin mode)
-        var inventorySnapshotStorage = new InventorySnapshotStorage(storageService);
+        var inventorySnapshotStorage = new InventorySnapshotStorage(storageService, blobStore);
+        // Move item data embedded by older versions into the blob store
+        components.add(inventorySnapshotStorage.migrateLegacySnapshots()
+                .subscribe(migrated -> {
+                    if (migrated > 0) {
+                        getLogger().info("Moved " + migrated + " inventory snapshot(s) into the blob store");
+                    }
+                }, err -> getLogger().warning("Failed to migrate inventory snapshots: " + err.getMessage())));
+        // Drop blobs left behind by deleted snapshots, on startup and then daily
+        components.add(interval(0, 1, TimeUnit.DAYS)
+                .concatMapSingle(tick -> inventorySnapshotStorage.sweepUnreferencedBlobs()
+                        .doOnSuccess(deleted -> {
+                            if (deleted > 0) {
+                                getLogger().info("Deleted " + deleted + " unreferenced blob(s)");
+                            }
+                        })
+                        .doOnError(err -> getLogger().warning("Failed to sweep blobs: " + err.getMessage()))
+                        .onErrorReturnItem(0))
+                .subscribe());
 
         var worldManager = new WorldManager(this, worldsConfig);
         worldManager.loadWorlds();
 
         // Admin mode system
-        var adminModeStorage = new AdminModeStorage(storageService);
-        var adminModeManager = new AdminModeManager(this, adminModeStorage, inventorySnapshotStorage, worldManager);
+        var adminModeStorage = new AdminModeStorage(storageService, inventorySnapshotStorage);
+        var adminModeManager = new AdminModeManager(this, adminModeStorage, worldManager, invalidationBus);
         components.add(adminModeManager);
 
         var safeTeleporter = new SafeTeleporter(this, config, locationTracker, confirmationManager,
@@ -277,7 +326,7 @@ public final class SiqiJoeyPlugin extends JavaPlugin {
         bossBarManager.registerProvider(new SleepCountdownProvider(majoritySleepManager));
 
         // Multi-world inventory and gamemode management
-        var inventoryGroupStorage = new InventoryGroupStorage(storageService);
+        var inventoryGroupStorage = new InventoryGroupStorage(storageService, inventorySnapshotStorage);
         var playerLastWorldStorage = new PlayerLastWorldStorage(storageService);
 
         var gamemodeManager = new GamemodeManager(this, worldManager, playerLastWorldStorage);
@@ -287,7 +336,7 @@ public final class SiqiJoeyPlugin extends JavaPlugin {
         components.add(advancementBlocker);
 
         var inventoryGroupManager = new InventoryGroupManager(
-                this, worldManager, inventorySnapshotStorage, inventoryGroupStorage,
+                this, worldManager, inventoryGroupStorage,
                 playerLastWorldStorage, playerWorldPositionStorage);
         components.add(inventoryGroupManager);
 
@@ -329,11 +378,11 @@ public final class SiqiJoeyPlugin extends JavaPlugin {
         components.add(CmdExecutor.register(this, new SeedCommand()));
 
         // Warp system
-        var warpStorage = new WarpStorage(storageService);
+        var warpStorage = new WarpStorage(storageService, invalidationBus);
         components.add(CmdExecutor.register(this, new WarpCommand(this, warpStorage, safeTeleporter)));
 
         // Spawn system
-        var spawnStorage = new SpawnStorage(storageService);
+        var spawnStorage = new SpawnStorage(storageService, invalidationBus);
         components.add(CmdExecutor.register(this, new SpawnCommand(this, spawnStorage, safeTeleporter)));
         components.add(CmdExecutor.register(this, new SetSpawnCommand(this, spawnStorage)));
 
@@ -364,6 +413,11 @@ public final class SiqiJoeyPlugin extends JavaPlugin {
     @Override
     public void onDisable() {
         components.dispose();
+        storageService.drainWrites(WRITE_DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        databaseExecutor.dispose();
+        if (replicaExecutor != null) {
+            replicaExecutor.dispose();
+        }
         database.dispose();
         schedulers.shutdown();
     }
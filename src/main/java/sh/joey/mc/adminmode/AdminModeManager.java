@@ -10,9 +10,11 @@ import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerPortalEvent;
 import sh.joey.mc.SiqiJoeyPlugin;
 import sh.joey.mc.inventory.InventorySnapshot;
-import sh.joey.mc.inventory.InventorySnapshotStorage;
 import sh.joey.mc.multiworld.WorldManager;
+import sh.joey.mc.storage.InvalidationBus;
+import sh.joey.mc.storage.InvalidationBus.Channel;
 
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -27,49 +29,70 @@ import java.util.logging.Logger;
 public final class AdminModeManager implements Disposable {
 
     private static final Component PREFIX = Component.text("[Admin] ", NamedTextColor.GOLD);
+    private static final Channel<UUID> STATE_CHANGED = Channel.ofUuid("smp_admin_mode");
 
     private final CompositeDisposable disposables = new CompositeDisposable();
     private final SiqiJoeyPlugin plugin;
     private final AdminModeStorage storage;
-    private final InventorySnapshotStorage snapshotStorage;
     private final WorldManager worldManager;
+    private final InvalidationBus bus;
     private final Logger logger;
 
     // In-memory cache for fast isInAdminMode checks
     private final Set<UUID> playersInAdminMode = ConcurrentHashMap.newKeySet();
 
-    public AdminModeManager(SiqiJoeyPlugin plugin, AdminModeStorage storage,
-                            InventorySnapshotStorage snapshotStorage, WorldManager worldManager) {
+    public AdminModeManager(SiqiJoeyPlugin plugin, AdminModeStorage storage, WorldManager worldManager,
+                            InvalidationBus bus) {
         this.plugin = plugin;
         this.storage = storage;
-        this.snapshotStorage = snapshotStorage;
         this.worldManager = worldManager;
+        this.bus = bus;
         this.logger = plugin.getLogger();
 
         // Load existing admin mode states on startup
+        loadAll();
+
+        // Players entering or leaving admin mode on other servers
+        disposables.add(bus.on(STATE_CHANGED).subscribe(this::reloadState));
+        disposables.add(bus.resyncs().subscribe(missed -> loadAll()));
+
+        // Watch PlayerJoinEvent - auto-exit if in admin mode
+        disposables.add(plugin.watchEvent(PlayerJoinEvent.class)
+                .filter(e -> playersInAdminMode.contains(e.getPlayer().getUniqueId()))
+                .subscribe(this::handleJoinWhileInAdminMode));
+
+        // Block portal usage
+        disposables.add(plugin.watchEvent(PlayerPortalEvent.class)
+                .filter(e -> playersInAdminMode.contains(e.getPlayer().getUniqueId()))
+                .subscribe(this::blockPortal));
+    }
+
+    private void loadAll() {
         disposables.add(storage.getAllInAdminMode()
                 .toList()
                 .subscribe(
                         states -> {
+                            Set<UUID> loaded = new HashSet<>();
                             for (var state : states) {
-                                playersInAdminMode.add(state.playerId());
+                                loaded.add(state.playerId());
                             }
+                            playersInAdminMode.retainAll(loaded);
+                            playersInAdminMode.addAll(loaded);
                             if (!states.isEmpty()) {
                                 logger.info("Loaded " + states.size() + " admin mode state(s)");
                             }
                         },
                         err -> logger.warning("Failed to load admin mode states: " + err.getMessage())
                 ));
+    }
 
-        // Watch PlayerJoinEvent - auto-exit if in admin mode
-        disposables.add(plugin.watchEvent(PlayerJoinEvent.class)
-                .filter(e -> playersInAdminMode.contains(e.getPlayer().getUniqueId()))
-                .subscribe(this::handleJoinWhileInAdminMode));
-
-        // Block portal usage
-        disposables.add(plugin.watchEvent(PlayerPortalEvent.class)
-                .filter(e -> playersInAdminMode.contains(e.getPlayer().getUniqueId()))
-                .subscribe(this::blockPortal));
+    private void reloadState(UUID playerId) {
+        disposables.add(storage.getState(playerId)
+                .subscribe(
+                        state -> playersInAdminMode.add(playerId),
+                        err -> logger.warning("Failed to reload admin mode state for " + playerId + ": " + err.getMessage()),
+                        () -> playersInAdminMode.remove(playerId)
+                ));
     }
 
     /**
@@ -105,14 +128,13 @@ public final class AdminModeManager implements Disposable {
         Map<String, Object> labels = Map.of("source", "admin_mode");
         InventorySnapshot snapshot = InventorySnapshot.capture(player, labels);
 
-        // Save snapshot and state
-        disposables.add(snapshotStorage.save(snapshot)
-                .flatMapCompletable(snapshotId ->
-                        storage.enterAdminMode(playerId, player.getWorld().getUID(), snapshotId))
+        // Save snapshot and state in one transaction
+        disposables.add(storage.enterAdminMode(playerId, player.getWorld().getUID(), snapshot)
                 .observeOn(plugin.mainScheduler())
                 .subscribe(
                         () -> {
                             playersInAdminMode.add(playerId);
+                            bus.publish(STATE_CHANGED, playerId);
                             InventorySnapshot.clearPlayer(player);
                             player.setGameMode(GameMode.CREATIVE);
                             success(player, "Entered admin mode. Your inventory has been saved.");
@@ -130,8 +152,7 @@ public final class AdminModeManager implements Disposable {
     private void exitAdminMode(Player player, Consumer<Boolean> callback) {
         UUID playerId = player.getUniqueId();
 
-        disposables.add(storage.getState(playerId)
-                .flatMap(state -> snapshotStorage.getById(state.snapshotId()))
+        disposables.add(storage.getSavedSnapshot(playerId)
                 .observeOn(plugin.mainScheduler())
                 .subscribe(
                         snapshot -> applySnapshotAndCleanup(player, snapshot, callback),
@@ -162,6 +183,7 @@ public final class AdminModeManager implements Disposable {
                 .subscribe(
                         () -> {
                             playersInAdminMode.remove(playerId);
+                            bus.publish(STATE_CHANGED, playerId);
                             success(player, "Exited admin mode. Your inventory has been restored.");
                             callback.accept(true);
                         },
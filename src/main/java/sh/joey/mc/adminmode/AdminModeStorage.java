@@ -3,8 +3,12 @@ package sh.joey.mc.adminmode;
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Maybe;
+import org.jetbrains.annotations.Nullable;
+import sh.joey.mc.inventory.InventorySnapshot;
+import sh.joey.mc.inventory.InventorySnapshotStorage;
 import sh.joey.mc.storage.StorageService;
 
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Instant;
@@ -18,26 +22,30 @@ import java.util.UUID;
 public final class AdminModeStorage {
 
     private final StorageService storage;
+    private final InventorySnapshotStorage snapshotStorage;
 
-    public AdminModeStorage(StorageService storage) {
+    public AdminModeStorage(StorageService storage, InventorySnapshotStorage snapshotStorage) {
         this.storage = storage;
+        this.snapshotStorage = snapshotStorage;
     }
 
     /**
      * Gets the admin mode state for a player, if they are in admin mode.
      */
     public Maybe<AdminModeState> getState(UUID playerId) {
-        return storage.queryMaybe(conn -> {
-            try (var stmt = conn.prepareStatement(
-                    "SELECT player_id, world_id, snapshot_id, entered_at FROM admin_mode_state WHERE player_id = ?")) {
-                stmt.setObject(1, playerId);
-                var rs = stmt.executeQuery();
-                if (rs.next()) {
-                    return parseState(rs);
-                }
-                return null;
+        return storage.queryMaybe(conn -> getStateSync(conn, playerId));
+    }
+
+    private @Nullable AdminModeState getStateSync(Connection conn, UUID playerId) throws SQLException {
+        try (var stmt = conn.prepareStatement(
+                "SELECT player_id, world_id, snapshot_id, entered_at FROM admin_mode_state WHERE player_id = ?")) {
+            stmt.setObject(1, playerId);
+            var rs = stmt.executeQuery();
+            if (rs.next()) {
+                return parseState(rs);
             }
-        });
+            return null;
+        }
     }
 
     /**
@@ -59,10 +67,12 @@ public final class AdminModeStorage {
     }
 
     /**
-     * Records a player entering admin mode.
+     * Saves a player's inventory snapshot and records them entering admin mode,
+     * in one transaction - either both are stored or neither is.
      */
-    public Completable enterAdminMode(UUID playerId, UUID worldId, UUID snapshotId) {
-        return storage.execute(conn -> {
+    public Completable enterAdminMode(UUID playerId, UUID worldId, InventorySnapshot snapshot) {
+        return storage.executeInTransaction(conn -> {
+            UUID snapshotId = snapshotStorage.saveSync(conn, snapshot);
             try (var stmt = conn.prepareStatement("""
                     INSERT INTO admin_mode_state (player_id, world_id, snapshot_id, entered_at)
                     VALUES (?, ?, ?, NOW())
@@ -79,6 +89,17 @@ public final class AdminModeStorage {
         });
     }
 
+    /**
+     * Gets the inventory snapshot saved when a player entered admin mode,
+     * reading the state and the snapshot on one connection.
+     */
+    public Maybe<InventorySnapshot> getSavedSnapshot(UUID playerId) {
+        return storage.queryMaybe(conn -> {
+            AdminModeState state = getStateSync(conn, playerId);
+            return state != null ? snapshotStorage.getByIdSync(conn, state.snapshotId()) : null;
+        });
+    }
+
     /**
      * Records a player exiting admin mode.
      */
@@ -51,7 +51,7 @@ public final class HomeStorage {
                        COALESCE(array_agg(hs.shared_with_id) FILTER (WHERE hs.shared_with_id IS NOT NULL), '{}') as shared_with
                 FROM homes h
                 LEFT JOIN home_shares hs ON h.id = hs.home_id
-                LEFT JOIN player_names pn ON h.player_id = pn.player_id
+                LEFT JOIN player_directory pn ON h.player_id = pn.player_id
                 WHERE h.player_id = ? AND h.name = ? AND h.deleted_at IS NULL
                 GROUP BY h.id, h.player_id, h.name, h.world_id, h.x, h.y, h.z, h.pitch, h.yaw, pn.username
                 """;
@@ -81,7 +81,7 @@ public final class HomeStorage {
                        COALESCE(array_agg(hs.shared_with_id) FILTER (WHERE hs.shared_with_id IS NOT NULL), '{}') as shared_with
                 FROM homes h
                 LEFT JOIN home_shares hs ON h.id = hs.home_id
-                LEFT JOIN player_names pn ON h.player_id = pn.player_id
+                LEFT JOIN player_directory pn ON h.player_id = pn.player_id
                 WHERE h.player_id = ? AND h.deleted_at IS NULL
                 GROUP BY h.id, h.player_id, h.name, h.world_id, h.x, h.y, h.z, h.pitch, h.yaw, pn.username
                 UNION ALL
@@ -91,7 +91,7 @@ public final class HomeStorage {
                 FROM homes h
                 INNER JOIN home_shares hs ON h.id = hs.home_id AND hs.shared_with_id = ?
                 LEFT JOIN home_shares hs2 ON h.id = hs2.home_id
-                LEFT JOIN player_names pn ON h.player_id = pn.player_id
+                LEFT JOIN player_directory pn ON h.player_id = pn.player_id
                 WHERE h.deleted_at IS NULL
                 GROUP BY h.id, h.player_id, h.name, h.world_id, h.x, h.y, h.z, h.pitch, h.yaw, pn.username
                 """;
@@ -135,45 +135,35 @@ public final class HomeStorage {
      */
     public Completable setHome(UUID playerId, Home home) {
         String normalizedName = normalizeName(home.name());
-        return storage.execute(conn -> {
-            conn.setAutoCommit(false);
-            try {
-                // Step 1: Soft-delete any existing active home with this name
-                String softDeleteSql = """
-                    UPDATE homes
-                    SET deleted_at = NOW()
-                    WHERE player_id = ? AND name = ? AND deleted_at IS NULL
-                    """;
-                try (PreparedStatement stmt = conn.prepareStatement(softDeleteSql)) {
-                    stmt.setObject(1, playerId);
-                    stmt.setString(2, normalizedName);
-                    stmt.executeUpdate();
-                }
-
-                // Step 2: Insert new home
-                String insertSql = """
-                    INSERT INTO homes (id, player_id, name, world_id, x, y, z, pitch, yaw)
-                    VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
-                    """;
-                try (PreparedStatement stmt = conn.prepareStatement(insertSql)) {
-                    stmt.setObject(1, home.id());
-                    stmt.setObject(2, playerId);
-                    stmt.setString(3, normalizedName);
-                    stmt.setObject(4, home.worldId());
-                    stmt.setDouble(5, home.x());
-                    stmt.setDouble(6, home.y());
-                    stmt.setDouble(7, home.z());
-                    stmt.setFloat(8, home.pitch());
-                    stmt.setFloat(9, home.yaw());
-                    stmt.executeUpdate();
-                }
+        return storage.executeInTransaction(conn -> {
+            // Step 1: Soft-delete any existing active home with this name
+            String softDeleteSql = """
+                UPDATE homes
+                SET deleted_at = NOW()
+                WHERE player_id = ? AND name = ? AND deleted_at IS NULL
+                """;
+            try (PreparedStatement stmt = conn.prepareStatement(softDeleteSql)) {
+                stmt.setObject(1, playerId);
+                stmt.setString(2, normalizedName);
+                stmt.executeUpdate();
+            }
 
-                conn.commit();
-            } catch (Exception e) {
-                conn.rollback();
-                throw e;
-            } finally {
-                conn.setAutoCommit(true);
+            // Step 2: Insert new home
+            String insertSql = """
+                INSERT INTO homes (id, player_id, name, world_id, x, y, z, pitch, yaw)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """;
+            try (PreparedStatement stmt = conn.prepareStatement(insertSql)) {
+                stmt.setObject(1, home.id());
+                stmt.setObject(2, playerId);
+                stmt.setString(3, normalizedName);
+                stmt.setObject(4, home.worldId());
+                stmt.setDouble(5, home.x());
+                stmt.setDouble(6, home.y());
+                stmt.setDouble(7, home.z());
+                stmt.setFloat(8, home.pitch());
+                stmt.setFloat(9, home.yaw());
+                stmt.executeUpdate();
             }
         });
     }
@@ -5,15 +5,19 @@ import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.core.Single;
+import org.jetbrains.annotations.Nullable;
 import sh.joey.mc.Json;
+import sh.joey.mc.storage.BlobStore;
+import sh.joey.mc.storage.Priority;
 import sh.joey.mc.storage.StorageService;
 
 import java.lang.reflect.Type;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -22,115 +26,151 @@ import java.util.UUID;
 /**
  * PostgreSQL storage for inventory snapshots.
  * Pure CRUD operations - no business logic.
+ * <p>
+ * The four serialized item arrays live in the {@link BlobStore} and snapshots reference
+ * them by hash, so an unchanged ender chest or armour set is stored once however many
+ * snapshots contain it. Rows written before the blob store still embed their bytes until
+ * {@link #migrateLegacySnapshots()} moves them. Deleting snapshots leaves their blobs
+ * behind until {@link #sweepUnreferencedBlobs()} removes the ones nothing uses.
  */
 public final class InventorySnapshotStorage {
 
     private static final Type EFFECT_LIST_TYPE = new TypeToken<List<InventorySnapshot.EffectData>>() {}.getType();
     private static final Type LABELS_TYPE = new TypeToken<Map<String, Object>>() {}.getType();
+    private static final int LIST_FETCH_SIZE = 16;
+    private static final int MIGRATION_BATCH_SIZE = 100;
+    private static final int SWEEP_BATCH_SIZE = 500;
+
+    // Legacy rows have no blob to join, so they fall back to the embedded column with
+    // compressed = NULL (read as false)
+    private static final String SELECT_SNAPSHOT = """
+        SELECT s.id, s.player_id,
+               COALESCE(b_inv.data, s.inventory_data) AS inventory_data,
+               b_inv.compressed AS inventory_compressed,
+               COALESCE(b_armor.data, s.armor_data) AS armor_data,
+               b_armor.compressed AS armor_compressed,
+               COALESCE(b_offhand.data, s.offhand_data) AS offhand_data,
+               b_offhand.compressed AS offhand_compressed,
+               COALESCE(b_ender.data, s.ender_chest_data) AS ender_chest_data,
+               b_ender.compressed AS ender_chest_compressed,
+               s.xp_level, s.xp_progress, s.health, s.max_health, s.hunger, s.saturation,
+               s.effects_json, s.labels, s.snapshot_at
+        FROM inventory_snapshots s
+        LEFT JOIN blobs b_inv ON b_inv.hash = s.inventory_hash
+        LEFT JOIN blobs b_armor ON b_armor.hash = s.armor_hash
+        LEFT JOIN blobs b_offhand ON b_offhand.hash = s.offhand_hash
+        LEFT JOIN blobs b_ender ON b_ender.hash = s.ender_chest_hash
+        """;
 
     private final StorageService storage;
+    private final StorageService background;
+    private final BlobStore blobs;
 
-    public InventorySnapshotStorage(StorageService storage) {
+    public InventorySnapshotStorage(StorageService storage, BlobStore blobs) {
         this.storage = storage;
+        this.background = storage.withPriority(Priority.BACKGROUND);
+        this.blobs = blobs;
     }
 
     /**
      * Saves a snapshot and returns its ID.
      */
     public Single<UUID> save(InventorySnapshot snapshot) {
-        return storage.query(conn -> {
-            String sql = """
-                INSERT INTO inventory_snapshots (
-                    id, player_id,
-                    inventory_data, armor_data, offhand_data, ender_chest_data,
-                    xp_level, xp_progress, health, max_health, hunger, saturation,
-                    effects_json, labels, snapshot_at
-                ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?::jsonb, ?::jsonb, ?)
-                RETURNING id
-                """;
+        return storage.transaction(conn -> saveSync(conn, snapshot));
+    }
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setObject(1, snapshot.id());
-                stmt.setObject(2, snapshot.playerId());
-                stmt.setBytes(3, snapshot.inventoryData());
-                stmt.setBytes(4, snapshot.armorData());
-                stmt.setBytes(5, snapshot.offhandData());
-                stmt.setBytes(6, snapshot.enderChestData());
-                stmt.setInt(7, snapshot.xpLevel());
-                stmt.setFloat(8, snapshot.xpProgress());
-                stmt.setDouble(9, snapshot.health());
-                stmt.setDouble(10, snapshot.maxHealth());
-                stmt.setInt(11, snapshot.hunger());
-                stmt.setFloat(12, snapshot.saturation());
-                stmt.setString(13, Json.GSON.toJson(snapshot.effects()));
-                stmt.setString(14, Json.GSON.toJson(snapshot.labels()));
-                stmt.setTimestamp(15, Timestamp.from(snapshot.snapshotAt()));
-
-                try (ResultSet rs = stmt.executeQuery()) {
-                    rs.next();
-                    return rs.getObject("id", UUID.class);
-                }
+    /**
+     * Saves a snapshot on an existing connection (for use inside a unit of work).
+     * Item data the blob store already holds isn't sent again.
+     */
+    public UUID saveSync(Connection conn, InventorySnapshot snapshot) throws SQLException {
+        List<byte[]> hashes = blobs.putAllSync(conn, List.of(
+                snapshot.inventoryData(), snapshot.armorData(),
+                snapshot.offhandData(), snapshot.enderChestData()));
+
+        String sql = """
+            INSERT INTO inventory_snapshots (
+                id, player_id,
+                inventory_hash, armor_hash, offhand_hash, ender_chest_hash,
+                xp_level, xp_progress, health, max_health, hunger, saturation,
+                effects_json, labels, snapshot_at
+            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?::jsonb, ?::jsonb, ?)
+            RETURNING id
+            """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setObject(1, snapshot.id());
+            stmt.setObject(2, snapshot.playerId());
+            stmt.setBytes(3, hashes.get(0));
+            stmt.setBytes(4, hashes.get(1));
+            stmt.setBytes(5, hashes.get(2));
+            stmt.setBytes(6, hashes.get(3));
+            stmt.setInt(7, snapshot.xpLevel());
+            stmt.setFloat(8, snapshot.xpProgress());
+            stmt.setDouble(9, snapshot.health());
+            stmt.setDouble(10, snapshot.maxHealth());
+            stmt.setInt(11, snapshot.hunger());
+            stmt.setFloat(12, snapshot.saturation());
+            stmt.setString(13, Json.GSON.toJson(snapshot.effects()));
+            stmt.setString(14, Json.GSON.toJson(snapshot.labels()));
+            stmt.setTimestamp(15, Timestamp.from(snapshot.snapshotAt()));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                storage.markWritten(snapshot.playerId());
+                return rs.getObject("id", UUID.class);
             }
-        });
+        }
     }
 
     /**
      * Gets a snapshot by its ID.
      */
     public Maybe<InventorySnapshot> getById(UUID snapshotId) {
-        return storage.queryMaybe(conn -> {
-            String sql = """
-                SELECT id, player_id,
-                       inventory_data, armor_data, offhand_data, ender_chest_data,
-                       xp_level, xp_progress, health, max_health, hunger, saturation,
-                       effects_json, labels, snapshot_at
-                FROM inventory_snapshots
-                WHERE id = ?
-                """;
+        return storage.queryMaybe(conn -> getByIdSync(conn, snapshotId));
+    }
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setObject(1, snapshotId);
+    /**
+     * Gets a snapshot by its ID on an existing connection (for use inside a unit of work).
+     *
+     * @return the snapshot, or null if not found
+     */
+    public @Nullable InventorySnapshot getByIdSync(Connection conn, UUID snapshotId) throws SQLException {
+        String sql = SELECT_SNAPSHOT + "WHERE s.id = ?";
 
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        return readSnapshot(rs);
-                    }
-                    return null;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setObject(1, snapshotId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return readSnapshot(rs);
                 }
+                return null;
             }
-        });
+        }
     }
 
     /**
-     * Lists snapshots for a player, ordered by time descending.
+     * Lists snapshots for a player, ordered by time descending. Reads from the replica if configured.
+     * <p>
+     * Nothing in the plugin calls this yet; it is kept for a snapshot browser, and is the
+     * only user of {@link StorageService#readStream} so far.
      */
     public Flowable<InventorySnapshot> listByPlayer(UUID playerId, int limit, int offset) {
-        return storage.queryFlowable(conn -> {
-            String sql = """
-                SELECT id, player_id,
-                       inventory_data, armor_data, offhand_data, ender_chest_data,
-                       xp_level, xp_progress, health, max_health, hunger, saturation,
-                       effects_json, labels, snapshot_at
-                FROM inventory_snapshots
-                WHERE player_id = ?
-                ORDER BY snapshot_at DESC
-                LIMIT ? OFFSET ?
-                """;
-
-            List<InventorySnapshot> snapshots = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setObject(1, playerId);
-                stmt.setInt(2, limit);
-                stmt.setInt(3, offset);
+        String sql = SELECT_SNAPSHOT + """
+            WHERE s.player_id = ?
+            ORDER BY s.snapshot_at DESC
+            LIMIT ? OFFSET ?
+            """;
 
-                try (ResultSet rs = stmt.executeQuery()) {
-                    while (rs.next()) {
-                        snapshots.add(readSnapshot(rs));
-                    }
-                }
-            }
-            return snapshots;
-        });
+        // Snapshots carry serialized inventories, so stream them rather than loading the page at once
+        return storage.readStream(playerId, conn -> {
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setObject(1, playerId);
+            stmt.setInt(2, limit);
+            stmt.setInt(3, offset);
+            return stmt;
+        }, this::readSnapshot, LIST_FETCH_SIZE);
     }
 
     /**
@@ -147,7 +187,93 @@ public final class InventorySnapshotStorage {
         });
     }
 
-    private InventorySnapshot readSnapshot(ResultSet rs) throws java.sql.SQLException {
+    /**
+     * Moves item data embedded in snapshots written before the blob store into it, in
+     * batches at background priority, until none are left. Safe to run on several
+     * servers at once: each batch skips rows another server has locked.
+     *
+     * @return a Single emitting the number of snapshots migrated
+     */
+    public Single<Integer> migrateLegacySnapshots() {
+        return background.transaction(this::migrateBatchSync)
+                .repeat()
+                .takeUntil(migrated -> migrated < MIGRATION_BATCH_SIZE)
+                .reduce(0, Integer::sum);
+    }
+
+    private int migrateBatchSync(Connection conn) throws SQLException {
+        String select = """
+            SELECT id, inventory_data, armor_data, offhand_data, ender_chest_data
+            FROM inventory_snapshots
+            WHERE inventory_hash IS NULL
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            """;
+        String update = """
+            UPDATE inventory_snapshots
+            SET inventory_hash = ?, armor_hash = ?, offhand_hash = ?, ender_chest_hash = ?,
+                inventory_data = NULL, armor_data = NULL, offhand_data = NULL, ender_chest_data = NULL
+            WHERE id = ?
+            """;
+
+        int migrated = 0;
+        try (PreparedStatement selectStmt = conn.prepareStatement(select);
+             PreparedStatement updateStmt = conn.prepareStatement(update)) {
+            selectStmt.setInt(1, MIGRATION_BATCH_SIZE);
+
+            try (ResultSet rs = selectStmt.executeQuery()) {
+                while (rs.next()) {
+                    List<byte[]> hashes = blobs.putAllSync(conn, List.of(
+                            rs.getBytes("inventory_data"), rs.getBytes("armor_data"),
+                            rs.getBytes("offhand_data"), rs.getBytes("ender_chest_data")));
+                    for (int i = 0; i < hashes.size(); i++) {
+                        updateStmt.setBytes(i + 1, hashes.get(i));
+                    }
+                    updateStmt.setObject(5, rs.getObject("id", UUID.class));
+                    updateStmt.addBatch();
+                    migrated++;
+                }
+            }
+            if (migrated > 0) {
+                updateStmt.executeBatch();
+            }
+        }
+        return migrated;
+    }
+
+    /**
+     * Deletes blobs no snapshot references, in batches at background priority, until
+     * none are left. Blobs a concurrent save is reusing are locked and skipped.
+     *
+     * @return a Single emitting the number of blobs deleted
+     */
+    public Single<Integer> sweepUnreferencedBlobs() {
+        String sql = """
+            DELETE FROM blobs
+            WHERE hash IN (
+                SELECT b.hash
+                FROM blobs b
+                WHERE NOT EXISTS (SELECT 1 FROM inventory_snapshots s WHERE s.inventory_hash = b.hash)
+                  AND NOT EXISTS (SELECT 1 FROM inventory_snapshots s WHERE s.armor_hash = b.hash)
+                  AND NOT EXISTS (SELECT 1 FROM inventory_snapshots s WHERE s.offhand_hash = b.hash)
+                  AND NOT EXISTS (SELECT 1 FROM inventory_snapshots s WHERE s.ender_chest_hash = b.hash)
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            """;
+
+        return background.transaction(conn -> {
+                    try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                        stmt.setInt(1, SWEEP_BATCH_SIZE);
+                        return stmt.executeUpdate();
+                    }
+                })
+                .repeat()
+                .takeUntil(deleted -> deleted < SWEEP_BATCH_SIZE)
+                .reduce(0, Integer::sum);
+    }
+
+    private InventorySnapshot readSnapshot(ResultSet rs) throws SQLException {
         String effectsJson = rs.getString("effects_json");
         List<InventorySnapshot.EffectData> effects = effectsJson != null
                 ? Json.GSON.fromJson(effectsJson, EFFECT_LIST_TYPE)
@@ -163,10 +289,10 @@ public final class InventorySnapshotStorage {
         return new InventorySnapshot(
                 rs.getObject("id", UUID.class),
                 rs.getObject("player_id", UUID.class),
-                rs.getBytes("inventory_data"),
-                rs.getBytes("armor_data"),
-                rs.getBytes("offhand_data"),
-                rs.getBytes("ender_chest_data"),
+                BlobStore.unpack(rs.getBytes("inventory_data"), rs.getBoolean("inventory_compressed")),
+                BlobStore.unpack(rs.getBytes("armor_data"), rs.getBoolean("armor_compressed")),
+                BlobStore.unpack(rs.getBytes("offhand_data"), rs.getBoolean("offhand_compressed")),
+                BlobStore.unpack(rs.getBytes("ender_chest_data"), rs.getBoolean("ender_chest_compressed")),
                 rs.getInt("xp_level"),
                 rs.getFloat("xp_progress"),
                 rs.getDouble("health"),
@@ -8,13 +8,15 @@ import org.bukkit.plugin.java.JavaPlugin;
  */
 public record MessageConfig(
         int maxQueuedPerSender,
-        int queuedDeliveryDelaySeconds
+        int queuedDeliveryDelaySeconds,
+        int unreadMaxAgeDays
 ) {
     public static MessageConfig load(JavaPlugin plugin) {
         FileConfiguration config = plugin.getConfig();
         return new MessageConfig(
                 config.getInt("messages.max-queued-per-sender", 5),
-                config.getInt("messages.queued-delivery-delay-seconds", 3)
+                config.getInt("messages.queued-delivery-delay-seconds", 3),
+                config.getInt("messages.unread-max-age-days", 0)
         );
     }
 }
@@ -33,6 +33,7 @@ import java.util.concurrent.TimeUnit;
  *   <li>Deliver queued messages on join</li>
  *   <li>Track last sender for /reply</li>
  *   <li>Enforce max queued messages limit</li>
+ *   <li>Expire messages left unread too long, if configured</li>
  * </ul>
  */
 public final class PrivateMessageManager implements Disposable {
@@ -70,6 +71,20 @@ public final class PrivateMessageManager implements Disposable {
         // Clean up on player quit
         disposables.add(plugin.watchEvent(PlayerQuitEvent.class)
                 .subscribe(event -> lastSender.remove(event.getPlayer().getUniqueId())));
+
+        // Expire messages left unread longer than unread-max-age-days, if set
+        if (storage.expires()) {
+            disposables.add(plugin.interval(0, 1, TimeUnit.DAYS)
+                    .concatMapSingle(tick -> storage.pruneExpired()
+                            .doOnSuccess(deleted -> {
+                                if (deleted > 0) {
+                                    plugin.getLogger().info("Expired " + deleted + " unread private message(s)");
+                                }
+                            })
+                            .doOnError(err -> plugin.getLogger().warning("Failed to expire unread messages: " + err.getMessage()))
+                            .onErrorReturnItem(0))
+                    .subscribe());
+        }
     }
 
     /**
@@ -207,7 +222,7 @@ public final class PrivateMessageManager implements Disposable {
             player.sendMessage(msgComponent);
 
             // Mark as read
-            disposables.add(storage.markAsRead(msg.id()).subscribe());
+            disposables.add(storage.markAsRead(msg.id(), msg.createdAt()).subscribe());
         }
     }
 
@@ -3,24 +3,59 @@ package sh.joey.mc.msg;
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Single;
+import sh.joey.mc.storage.Priority;
 import sh.joey.mc.storage.StorageService;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
 /**
  * Storage operations for private messages.
+ * <p>
+ * private_messages is partitioned by month on created_at. Unread messages wait until
+ * they are delivered unless {@code unreadMaxAge} is set. Then messages left unread
+ * longer expire: {@link #pruneExpired()} deletes them, and unread queries only look
+ * back over the prune's window so they skip older partitions. Unread messages already
+ * older than the window when expiry is turned on are hidden, and go when their month
+ * is archived.
  */
 public final class PrivateMessageStorage {
 
+    // How far past unreadMaxAge the daily prune reaches, so a few missed days still get
+    // pruned rather than hidden
+    private static final Duration PRUNE_WINDOW = Duration.ofDays(7);
+
     private final StorageService storage;
+    private final Duration unreadMaxAge;
 
-    public PrivateMessageStorage(StorageService storage) {
+    /**
+     * @param unreadMaxAge how long a message may stay unread before it expires, or
+     *                     {@link Duration#ZERO} to keep unread messages until delivered
+     */
+    public PrivateMessageStorage(StorageService storage, Duration unreadMaxAge) {
         this.storage = storage;
+        this.unreadMaxAge = unreadMaxAge;
+    }
+
+    /**
+     * Whether unread messages expire, i.e. {@link #pruneExpired()} needs to run.
+     */
+    public boolean expires() {
+        return unreadMaxAge.isPositive();
+    }
+
+    private String unreadBound() {
+        return expires() ? " AND created_at >= ?" : "";
+    }
+
+    private Timestamp windowStart() {
+        return Timestamp.from(Instant.now().minus(unreadMaxAge).minus(PRUNE_WINDOW));
     }
 
     /**
@@ -49,12 +84,15 @@ public final class PrivateMessageStorage {
             String sql = """
                 SELECT id, sender_id, recipient_id, content, read_at, created_at
                 FROM private_messages
-                WHERE recipient_id = ? AND read_at IS NULL
+                WHERE recipient_id = ? AND read_at IS NULL%s
                 ORDER BY created_at ASC
-                """;
+                """.formatted(unreadBound());
             List<PrivateMessage> messages = new ArrayList<>();
             try (var stmt = conn.prepareStatement(sql)) {
                 stmt.setObject(1, recipientId);
+                if (expires()) {
+                    stmt.setTimestamp(2, windowStart());
+                }
                 try (var rs = stmt.executeQuery()) {
                     while (rs.next()) {
                         messages.add(readMessage(rs));
@@ -67,16 +105,18 @@ public final class PrivateMessageStorage {
 
     /**
      * Mark a specific message as read.
+     * The creation time locates the message's partition.
      */
-    public Completable markAsRead(UUID messageId) {
+    public Completable markAsRead(UUID messageId, Instant createdAt) {
         return storage.execute(conn -> {
             String sql = """
                 UPDATE private_messages
                 SET read_at = NOW()
-                WHERE id = ?
+                WHERE id = ? AND created_at = ?
                 """;
             try (var stmt = conn.prepareStatement(sql)) {
                 stmt.setObject(1, messageId);
+                stmt.setTimestamp(2, Timestamp.from(createdAt));
                 stmt.executeUpdate();
             }
         });
@@ -90,10 +130,13 @@ public final class PrivateMessageStorage {
             String sql = """
                 UPDATE private_messages
                 SET read_at = NOW()
-                WHERE recipient_id = ? AND read_at IS NULL
-                """;
+                WHERE recipient_id = ? AND read_at IS NULL%s
+                """.formatted(unreadBound());
             try (var stmt = conn.prepareStatement(sql)) {
                 stmt.setObject(1, recipientId);
+                if (expires()) {
+                    stmt.setTimestamp(2, windowStart());
+                }
                 stmt.executeUpdate();
             }
         });
@@ -108,11 +151,14 @@ public final class PrivateMessageStorage {
             String sql = """
                 SELECT COUNT(*)
                 FROM private_messages
-                WHERE sender_id = ? AND recipient_id = ? AND read_at IS NULL
-                """;
+                WHERE sender_id = ? AND recipient_id = ? AND read_at IS NULL%s
+                """.formatted(unreadBound());
             try (var stmt = conn.prepareStatement(sql)) {
                 stmt.setObject(1, senderId);
                 stmt.setObject(2, recipientId);
+                if (expires()) {
+                    stmt.setTimestamp(3, windowStart());
+                }
                 try (var rs = stmt.executeQuery()) {
                     rs.next();
                     return rs.getInt(1);
@@ -121,6 +167,27 @@ public final class PrivateMessageStorage {
         });
     }
 
+    /**
+     * Delete unread messages that have passed {@code unreadMaxAge} within the prune
+     * window; they will never be delivered. Read messages are kept. Only call this when
+     * {@link #expires()}.
+     *
+     * @return the number of messages deleted
+     */
+    public Single<Integer> pruneExpired() {
+        return storage.withPriority(Priority.BACKGROUND).query(conn -> {
+            String sql = """
+                DELETE FROM private_messages
+                WHERE created_at >= ? AND created_at < ? AND read_at IS NULL
+                """;
+            try (var stmt = conn.prepareStatement(sql)) {
+                stmt.setTimestamp(1, windowStart());
+                stmt.setTimestamp(2, Timestamp.from(Instant.now().minus(unreadMaxAge)));
+                return stmt.executeUpdate();
+            }
+        });
+    }
+
     private PrivateMessage readMessage(ResultSet rs) throws SQLException {
         Timestamp readAtTs = rs.getTimestamp("read_at");
         return new PrivateMessage(
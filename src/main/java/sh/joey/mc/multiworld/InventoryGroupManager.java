@@ -13,7 +13,6 @@ import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import sh.joey.mc.SiqiJoeyPlugin;
 import sh.joey.mc.inventory.InventorySnapshot;
-import sh.joey.mc.inventory.InventorySnapshotStorage;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -42,7 +41,6 @@ public final class InventoryGroupManager implements Disposable {
     private final CompositeDisposable disposables = new CompositeDisposable();
     private final SiqiJoeyPlugin plugin;
     private final WorldManager worldManager;
-    private final InventorySnapshotStorage snapshotStorage;
     private final InventoryGroupStorage groupStorage;
     private final PlayerLastWorldStorage lastWorldStorage;
     private final PlayerWorldPositionStorage positionStorage;
@@ -54,14 +52,12 @@ public final class InventoryGroupManager implements Disposable {
     public InventoryGroupManager(
             SiqiJoeyPlugin plugin,
             WorldManager worldManager,
-            InventorySnapshotStorage snapshotStorage,
             InventoryGroupStorage groupStorage,
             PlayerLastWorldStorage lastWorldStorage,
             PlayerWorldPositionStorage positionStorage
     ) {
         this.plugin = plugin;
         this.worldManager = worldManager;
-        this.snapshotStorage = snapshotStorage;
         this.groupStorage = groupStorage;
         this.lastWorldStorage = lastWorldStorage;
         this.positionStorage = positionStorage;
@@ -108,12 +104,8 @@ public final class InventoryGroupManager implements Disposable {
         );
         InventorySnapshot currentSnapshot = InventorySnapshot.capture(player, labels);
 
-        // Save current inventory, update pivot table, then load target group's inventory
-        snapshotStorage.save(currentSnapshot)
-                .flatMapCompletable(snapshotId ->
-                        groupStorage.setSnapshotForGroup(playerId, fromGroup, snapshotId))
-                .andThen(groupStorage.getSnapshotForGroup(playerId, toGroup))
-                .flatMap(snapshotStorage::getById)
+        // Save current inventory, update pivot table, then load target group's inventory (one transaction)
+        groupStorage.switchGroup(playerId, fromGroup, currentSnapshot, toGroup)
                 .observeOn(plugin.mainScheduler())
                 .subscribe(
                         snapshot -> applySnapshot(player, snapshot, toGroup),
@@ -176,12 +168,8 @@ public final class InventoryGroupManager implements Disposable {
         );
         InventorySnapshot currentSnapshot = InventorySnapshot.capture(player, labels);
 
-        // Save stale inventory, then load correct group's inventory
-        snapshotStorage.save(currentSnapshot)
-                .flatMapCompletable(snapshotId ->
-                        groupStorage.setSnapshotForGroup(playerId, previousGroup, snapshotId))
-                .andThen(groupStorage.getSnapshotForGroup(playerId, currentGroup))
-                .flatMap(snapshotStorage::getById)
+        // Save stale inventory, then load correct group's inventory (one transaction)
+        groupStorage.switchGroup(playerId, previousGroup, currentSnapshot, currentGroup)
                 .observeOn(plugin.mainScheduler())
                 .doOnTerminate(() -> saveLastWorld(player, currentWorld, currentGroup))
                 .subscribe(
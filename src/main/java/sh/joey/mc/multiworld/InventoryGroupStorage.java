@@ -2,10 +2,15 @@ package sh.joey.mc.multiworld;
 
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Maybe;
+import org.jetbrains.annotations.Nullable;
+import sh.joey.mc.inventory.InventorySnapshot;
+import sh.joey.mc.inventory.InventorySnapshotStorage;
 import sh.joey.mc.storage.StorageService;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.UUID;
 
 /**
@@ -15,65 +20,67 @@ import java.util.UUID;
 public final class InventoryGroupStorage {
 
     private final StorageService storage;
+    private final InventorySnapshotStorage snapshotStorage;
 
-    public InventoryGroupStorage(StorageService storage) {
+    public InventoryGroupStorage(StorageService storage, InventorySnapshotStorage snapshotStorage) {
         this.storage = storage;
+        this.snapshotStorage = snapshotStorage;
     }
 
     /**
-     * Gets the snapshot ID for a player's inventory group.
+     * Switches a player between inventory groups in one transaction: saves their current
+     * inventory, points the group they are leaving at it, and loads the snapshot of the
+     * group they are entering. If any step fails nothing is stored.
      *
-     * @param playerId       the player's UUID
-     * @param inventoryGroup the inventory group name
-     * @return the snapshot ID, or empty if no snapshot exists for this group
+     * @param playerId  the player's UUID
+     * @param fromGroup the inventory group being left
+     * @param current   the player's current inventory, to be stored for {@code fromGroup}
+     * @param toGroup   the inventory group being entered
+     * @return the snapshot for {@code toGroup}, or empty if it has none
      */
-    public Maybe<UUID> getSnapshotForGroup(UUID playerId, String inventoryGroup) {
-        return storage.queryMaybe(conn -> {
-            String sql = """
-                SELECT snapshot_id
-                FROM inventory_group_snapshots
-                WHERE player_id = ? AND inventory_group = ?
-                """;
+    public Maybe<InventorySnapshot> switchGroup(UUID playerId, String fromGroup, InventorySnapshot current, String toGroup) {
+        return storage.transactionMaybe(conn -> {
+            UUID savedId = snapshotStorage.saveSync(conn, current);
+            setSnapshotForGroupSync(conn, playerId, fromGroup, savedId);
+            UUID targetId = getSnapshotForGroupSync(conn, playerId, toGroup);
+            return targetId != null ? snapshotStorage.getByIdSync(conn, targetId) : null;
+        });
+    }
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setObject(1, playerId);
-                stmt.setString(2, inventoryGroup);
+    private @Nullable UUID getSnapshotForGroupSync(Connection conn, UUID playerId, String inventoryGroup) throws SQLException {
+        String sql = """
+            SELECT snapshot_id
+            FROM inventory_group_snapshots
+            WHERE player_id = ? AND inventory_group = ?
+            """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setObject(1, playerId);
+            stmt.setString(2, inventoryGroup);
 
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        return rs.getObject("snapshot_id", UUID.class);
-                    }
-                    return null;
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getObject("snapshot_id", UUID.class);
                 }
+                return null;
             }
-        });
+        }
     }
 
-    /**
-     * Sets the snapshot ID for a player's inventory group.
-     * Uses UPSERT to insert or update.
-     *
-     * @param playerId       the player's UUID
-     * @param inventoryGroup the inventory group name
-     * @param snapshotId     the snapshot ID
-     * @return a completable that completes when the operation is done
-     */
-    public Completable setSnapshotForGroup(UUID playerId, String inventoryGroup, UUID snapshotId) {
-        return storage.execute(conn -> {
-            String sql = """
-                INSERT INTO inventory_group_snapshots (player_id, inventory_group, snapshot_id, updated_at)
-                VALUES (?, ?, ?, NOW())
-                ON CONFLICT (player_id, inventory_group)
-                DO UPDATE SET snapshot_id = EXCLUDED.snapshot_id, updated_at = NOW()
-                """;
+    private void setSnapshotForGroupSync(Connection conn, UUID playerId, String inventoryGroup, UUID snapshotId) throws SQLException {
+        String sql = """
+            INSERT INTO inventory_group_snapshots (player_id, inventory_group, snapshot_id, updated_at)
+            VALUES (?, ?, ?, NOW())
+            ON CONFLICT (player_id, inventory_group)
+            DO UPDATE SET snapshot_id = EXCLUDED.snapshot_id, updated_at = NOW()
+            """;
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setObject(1, playerId);
-                stmt.setString(2, inventoryGroup);
-                stmt.setObject(3, snapshotId);
-                stmt.executeUpdate();
-            }
-        });
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setObject(1, playerId);
+            stmt.setString(2, inventoryGroup);
+            stmt.setObject(3, snapshotId);
+            stmt.executeUpdate();
+        }
     }
 
     /**
@@ -3,22 +3,33 @@ package sh.joey.mc.multiworld;
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Maybe;
 import sh.joey.mc.storage.StorageService;
+import sh.joey.mc.storage.WriteBehindQueue;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
 import java.util.UUID;
 
 /**
  * Storage for tracking the last world a player was in.
  * Used to detect when a player joins but their last world no longer exists,
  * requiring an inventory group swap.
+ * <p>
+ * Saves go through a write-behind queue and are written in batches; reads see
+ * saves not yet written.
  */
 public final class PlayerLastWorldStorage {
 
+    private static final int BATCH_SIZE = 100;
+
     private final StorageService storage;
+    private final WriteBehindQueue<UUID, LastWorldRow> writes;
 
     public PlayerLastWorldStorage(StorageService storage) {
         this.storage = storage;
+        this.writes = storage.writeBehind("player_last_worlds", PlayerLastWorldStorage::writeLastWorlds, BATCH_SIZE);
     }
 
     /**
@@ -26,6 +37,8 @@ public final class PlayerLastWorldStorage {
      */
     public record LastWorld(UUID worldUuid, String inventoryGroup) {}
 
+    private record LastWorldRow(UUID playerId, LastWorld lastWorld) {}
+
     /**
      * Gets the last world a player was in.
      *
@@ -33,6 +46,11 @@ public final class PlayerLastWorldStorage {
      * @return the last world info, or empty if not tracked
      */
     public Maybe<LastWorld> getLastWorld(UUID playerId) {
+        LastWorldRow pending = writes.pending(playerId);
+        if (pending != null) {
+            return Maybe.just(pending.lastWorld());
+        }
+
         return storage.queryMaybe(conn -> {
             String sql = """
                 SELECT world_uuid, inventory_group
@@ -65,22 +83,27 @@ public final class PlayerLastWorldStorage {
      * @return a completable that completes when saved
      */
     public Completable setLastWorld(UUID playerId, UUID worldUuid, String inventoryGroup) {
-        return storage.execute(conn -> {
-            String sql = """
-                INSERT INTO player_last_worlds (player_id, world_uuid, inventory_group, updated_at)
-                VALUES (?, ?, ?, NOW())
-                ON CONFLICT (player_id)
-                DO UPDATE SET world_uuid = EXCLUDED.world_uuid,
-                              inventory_group = EXCLUDED.inventory_group,
-                              updated_at = NOW()
-                """;
+        return writes.put(playerId, new LastWorldRow(playerId, new LastWorld(worldUuid, inventoryGroup)));
+    }
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setObject(1, playerId);
-                stmt.setObject(2, worldUuid);
-                stmt.setString(3, inventoryGroup);
-                stmt.executeUpdate();
+    private static void writeLastWorlds(Connection conn, List<LastWorldRow> rows) throws SQLException {
+        String sql = """
+            INSERT INTO player_last_worlds (player_id, world_uuid, inventory_group, updated_at)
+            VALUES %s
+            ON CONFLICT (player_id)
+            DO UPDATE SET world_uuid = EXCLUDED.world_uuid,
+                          inventory_group = EXCLUDED.inventory_group,
+                          updated_at = NOW()
+            """.formatted(WriteBehindQueue.rows("(?, ?, ?, NOW())", rows.size()));
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int i = 1;
+            for (LastWorldRow row : rows) {
+                stmt.setObject(i++, row.playerId());
+                stmt.setObject(i++, row.lastWorld().worldUuid());
+                stmt.setString(i++, row.lastWorld().inventoryGroup());
             }
-        });
+            stmt.executeUpdate();
+        }
     }
 }
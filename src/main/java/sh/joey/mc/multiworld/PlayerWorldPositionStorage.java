@@ -5,21 +5,36 @@ import io.reactivex.rxjava3.core.Maybe;
 import org.bukkit.Location;
 import org.bukkit.World;
 import sh.joey.mc.storage.StorageService;
+import sh.joey.mc.storage.WriteBehindQueue;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
 import java.util.UUID;
 
 /**
  * Storage for player positions per world.
  * Used by /world command to teleport players back to their last location in a world.
+ * <p>
+ * Saves go through a write-behind queue: repeated saves for the same player and world
+ * collapse into one row, written in batches. Reads see positions not yet written.
  */
 public final class PlayerWorldPositionStorage {
 
+    private static final int BATCH_SIZE = 100;
+
+    private record PositionKey(UUID playerId, UUID worldId) {}
+
+    private record Position(UUID playerId, UUID worldId, double x, double y, double z, float yaw, float pitch) {}
+
     private final StorageService storage;
+    private final WriteBehindQueue<PositionKey, Position> writes;
 
     public PlayerWorldPositionStorage(StorageService storage) {
         this.storage = storage;
+        this.writes = storage.writeBehind("player_world_positions", PlayerWorldPositionStorage::writePositions, BATCH_SIZE);
     }
 
     /**
@@ -30,26 +45,36 @@ public final class PlayerWorldPositionStorage {
      * @return a completable that completes when saved
      */
     public Completable savePosition(UUID playerId, Location location) {
-        return storage.execute(conn -> {
-            String sql = """
-                INSERT INTO player_world_positions (player_id, world_id, x, y, z, yaw, pitch, updated_at)
-                VALUES (?, ?, ?, ?, ?, ?, ?, NOW())
-                ON CONFLICT (player_id, world_id)
-                DO UPDATE SET x = EXCLUDED.x, y = EXCLUDED.y, z = EXCLUDED.z,
-                              yaw = EXCLUDED.yaw, pitch = EXCLUDED.pitch, updated_at = NOW()
-                """;
+        UUID worldId = location.getWorld().getUID();
+        return writes.put(new PositionKey(playerId, worldId), new Position(
+                playerId, worldId,
+                location.getX(), location.getY(), location.getZ(),
+                location.getYaw(), location.getPitch()
+        ));
+    }
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setObject(1, playerId);
-                stmt.setObject(2, location.getWorld().getUID());
-                stmt.setDouble(3, location.getX());
-                stmt.setDouble(4, location.getY());
-                stmt.setDouble(5, location.getZ());
-                stmt.setFloat(6, location.getYaw());
-                stmt.setFloat(7, location.getPitch());
-                stmt.executeUpdate();
+    private static void writePositions(Connection conn, List<Position> rows) throws SQLException {
+        String sql = """
+            INSERT INTO player_world_positions (player_id, world_id, x, y, z, yaw, pitch, updated_at)
+            VALUES %s
+            ON CONFLICT (player_id, world_id)
+            DO UPDATE SET x = EXCLUDED.x, y = EXCLUDED.y, z = EXCLUDED.z,
+                          yaw = EXCLUDED.yaw, pitch = EXCLUDED.pitch, updated_at = NOW()
+            """.formatted(WriteBehindQueue.rows("(?, ?, ?, ?, ?, ?, ?, NOW())", rows.size()));
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int i = 1;
+            for (Position row : rows) {
+                stmt.setObject(i++, row.playerId());
+                stmt.setObject(i++, row.worldId());
+                stmt.setDouble(i++, row.x());
+                stmt.setDouble(i++, row.y());
+                stmt.setDouble(i++, row.z());
+                stmt.setFloat(i++, row.yaw());
+                stmt.setFloat(i++, row.pitch());
             }
-        });
+            stmt.executeUpdate();
+        }
     }
 
     /**
@@ -60,6 +85,11 @@ public final class PlayerWorldPositionStorage {
      * @return the location, or empty if no position saved
      */
     public Maybe<Location> getPosition(UUID playerId, World world) {
+        Position pending = writes.pending(new PositionKey(playerId, world.getUID()));
+        if (pending != null) {
+            return Maybe.just(new Location(world, pending.x(), pending.y(), pending.z(), pending.yaw(), pending.pitch()));
+        }
+
         return storage.queryMaybe(conn -> {
             String sql = """
                 SELECT x, y, z, yaw, pitch
@@ -12,6 +12,8 @@ import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.jetbrains.annotations.Nullable;
 import sh.joey.mc.SiqiJoeyPlugin;
+import sh.joey.mc.storage.InvalidationBus;
+import sh.joey.mc.storage.InvalidationBus.Channel;
 
 import java.util.Map;
 import java.util.Optional;
@@ -29,18 +31,23 @@ import java.util.concurrent.TimeUnit;
  *   <li>Apply display name via player.displayName() and player.playerListName()</li>
  *   <li>Provide getDisplayName() methods</li>
  *   <li>Clean up cache on player quit</li>
+ *   <li>Reload a player's nickname when another server changes it</li>
  * </ul>
  */
 public final class NicknameManager implements Disposable {
 
+    private static final Channel<UUID> NICKNAME_CHANGED = Channel.ofUuid("smp_nickname");
+
     private final CompositeDisposable disposables = new CompositeDisposable();
     private final SiqiJoeyPlugin plugin;
     private final NicknameStorage storage;
+    private final InvalidationBus bus;
     private final Map<UUID, String> nicknameCache = new ConcurrentHashMap<>();
 
-    public NicknameManager(SiqiJoeyPlugin plugin, NicknameStorage storage) {
+    public NicknameManager(SiqiJoeyPlugin plugin, NicknameStorage storage, InvalidationBus bus) {
         this.plugin = plugin;
         this.storage = storage;
+        this.bus = bus;
 
         // Pre-load nickname during async pre-login (before PlayerJoinEvent)
         // This runs on an async thread, so blocking database query is safe
@@ -61,6 +68,45 @@ public final class NicknameManager implements Disposable {
                         nicknameCache.remove(playerId);
                     }
                 }));
+
+        // Nicknames changed on other servers
+        disposables.add(bus.on(NICKNAME_CHANGED).subscribe(this::reloadNickname));
+        disposables.add(bus.resyncs().subscribe(missed -> {
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                reloadNickname(player.getUniqueId());
+            }
+        }));
+    }
+
+    /**
+     * Re-read a nickname changed elsewhere. Only online players are cached, so anyone
+     * else is simply evicted.
+     */
+    private void reloadNickname(UUID playerId) {
+        if (Bukkit.getPlayer(playerId) == null) {
+            nicknameCache.remove(playerId);
+            return;
+        }
+        disposables.add(storage.getNickname(playerId)
+                .map(Nickname::nickname)
+                .observeOn(plugin.mainScheduler())
+                .subscribe(
+                        nickname -> applyChange(playerId, nickname),
+                        err -> plugin.getLogger().warning("Failed to reload nickname for " + playerId + ": " + err.getMessage()),
+                        () -> applyChange(playerId, null)
+                ));
+    }
+
+    private void applyChange(UUID playerId, @Nullable String nickname) {
+        Player player = Bukkit.getPlayer(playerId);
+        if (nickname != null) {
+            nicknameCache.put(playerId, nickname);
+        } else {
+            nicknameCache.remove(playerId);
+        }
+        if (player != null) {
+            applyDisplayName(player, nickname != null ? nickname : player.getName());
+        }
     }
 
     /**
@@ -109,11 +155,8 @@ public final class NicknameManager implements Disposable {
         return storage.setNickname(playerId, nickname)
                 .observeOn(plugin.mainScheduler())
                 .doOnComplete(() -> {
-                    nicknameCache.put(playerId, nickname);
-                    Player player = Bukkit.getPlayer(playerId);
-                    if (player != null) {
-                        applyDisplayName(player, nickname);
-                    }
+                    applyChange(playerId, nickname);
+                    bus.publish(NICKNAME_CHANGED, playerId);
                 });
     }
 
@@ -124,11 +167,8 @@ public final class NicknameManager implements Disposable {
         return storage.removeNickname(playerId)
                 .observeOn(plugin.mainScheduler())
                 .doOnSuccess(removed -> {
-                    nicknameCache.remove(playerId);
-                    Player player = Bukkit.getPlayer(playerId);
-                    if (player != null) {
-                        applyDisplayName(player, player.getName());
-                    }
+                    applyChange(playerId, null);
+                    bus.publish(NICKNAME_CHANGED, playerId);
                 })
                 .ignoreElement();
     }
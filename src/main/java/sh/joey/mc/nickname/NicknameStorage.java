@@ -4,11 +4,13 @@ import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.core.Single;
+import sh.joey.mc.storage.Priority;
 import sh.joey.mc.storage.StorageService;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
@@ -20,17 +22,23 @@ import java.util.UUID;
  */
 public final class NicknameStorage {
 
+    // Completion lookups are abandoned on the next keystroke anyway
+    private static final Duration COMPLETION_TIMEOUT = Duration.ofSeconds(2);
+
     private final StorageService storage;
+    // Pre-login blocks on the nickname lookup
+    private final StorageService login;
 
     public NicknameStorage(StorageService storage) {
         this.storage = storage;
+        this.login = storage.withPriority(Priority.LOGIN_CRITICAL);
     }
 
     /**
      * Get a player's nickname.
      */
     public Maybe<Nickname> getNickname(UUID playerId) {
-        return storage.queryMaybe(conn -> {
+        return login.queryMaybe(conn -> {
             String sql = "SELECT player_id, nickname, created_at, updated_at FROM player_nicknames WHERE player_id = ?";
 
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -168,7 +176,7 @@ public final class NicknameStorage {
                 }
             }
             return nicknames;
-        });
+        }, COMPLETION_TIMEOUT);
     }
 
     private Nickname readNickname(ResultSet rs) throws java.sql.SQLException {
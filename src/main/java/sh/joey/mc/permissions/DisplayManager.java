@@ -61,6 +61,13 @@ public final class DisplayManager implements Disposable {
         UUID playerId = player.getUniqueId();
         UUID worldId = player.getWorld().getUID();
 
+        // Usually resolved during pre-login - apply without waiting a tick
+        ResolvedPermissions cached = cache.getIfCached(playerId, worldId);
+        if (cached != null && plugin.getServer().isPrimaryThread()) {
+            applyDisplay(player, cached.attributes());
+            return;
+        }
+
         cache.get(playerId, worldId)
                 .observeOn(plugin.mainScheduler())
                 .subscribe(
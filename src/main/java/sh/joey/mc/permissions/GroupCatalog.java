@@ -0,0 +1,134 @@
+package sh.joey.mc.permissions;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable snapshot of every permission group and its grants.
+ * <p>
+ * Loaded in bulk by {@link PermissionStorage#loadAllGroups()} and shared by all
+ * resolutions, so resolving a player only needs to query the player's own rows.
+ * Replaced wholesale (never mutated) when a group changes; see {@link GroupCatalogCache}.
+ * <p>
+ * Also hands out each group's compiled {@link PermissionLayer} per world. Layers are
+ * interned by content, so a group with only global grants has one layer for every
+ * world, and all players in the group share it.
+ */
+public final class GroupCatalog {
+
+    public static final GroupCatalog EMPTY = of(List.of());
+
+    private final List<Group> groups;
+    private final List<Group> defaults;
+    private final Map<String, Group> byName;
+
+    // (group, world) -> compiled layer, and content -> canonical layer instance
+    private final Map<LayerKey, PermissionLayer> layers = new ConcurrentHashMap<>();
+    private final Map<PermissionLayer, PermissionLayer> internedLayers = new ConcurrentHashMap<>();
+
+    private record LayerKey(String group, UUID worldId) {}
+
+    private GroupCatalog(List<Group> groups, List<Group> defaults, Map<String, Group> byName) {
+        this.groups = groups;
+        this.defaults = defaults;
+        this.byName = byName;
+    }
+
+    /**
+     * Build a catalog from groups ordered by priority (highest first).
+     */
+    public static GroupCatalog of(List<Group> groups) {
+        Map<String, Group> byName = new HashMap<>();
+        List<Group> defaults = new ArrayList<>();
+        for (Group group : groups) {
+            byName.put(group.canonicalName(), group);
+            if (group.isDefault()) {
+                defaults.add(group);
+            }
+        }
+        return new GroupCatalog(List.copyOf(groups), List.copyOf(defaults), Map.copyOf(byName));
+    }
+
+    /**
+     * Get a group by name (case-insensitive).
+     */
+    public @Nullable Group get(String name) {
+        return byName.get(Group.normalize(name));
+    }
+
+    /**
+     * Returns all groups, highest priority first.
+     */
+    public List<Group> all() {
+        return groups;
+    }
+
+    /**
+     * Returns all default groups, highest priority first.
+     */
+    public List<Group> defaults() {
+        return defaults;
+    }
+
+    /**
+     * Returns the groups a player belongs to: every default group plus their explicit
+     * memberships, highest priority first. Unknown group names are ignored.
+     *
+     * @param explicitGroups canonical names from {@code player_groups}
+     */
+    public List<Group> groupsFor(Collection<String> explicitGroups) {
+        if (explicitGroups.isEmpty()) {
+            return defaults;
+        }
+
+        List<Group> result = new ArrayList<>();
+        for (Group group : groups) {
+            if (group.isDefault() || explicitGroups.contains(group.canonicalName())) {
+                result.add(group);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a group's grants in a world as a shared, compiled layer.
+     */
+    public PermissionLayer layer(Group group, UUID worldId) {
+        return layers.computeIfAbsent(new LayerKey(group.canonicalName(), worldId), key -> {
+            PermissionLayer built = PermissionLayer.of(PermissionResolver.resolveGrants(group.grants(), worldId));
+            return intern(built);
+        });
+    }
+
+    /**
+     * Returns the shared instance of a layer with the same content, registering it if new.
+     */
+    public PermissionLayer intern(PermissionLayer layer) {
+        if (layer.size() == 0) {
+            return PermissionLayer.EMPTY;
+        }
+        PermissionLayer existing = internedLayers.putIfAbsent(layer, layer);
+        return existing != null ? existing : layer;
+    }
+
+    /**
+     * Returns the distinct group layers compiled so far.
+     */
+    public Collection<PermissionLayer> sharedLayers() {
+        return internedLayers.values();
+    }
+
+    /**
+     * Returns the number of groups in this catalog.
+     */
+    public int size() {
+        return groups.size();
+    }
+}
@@ -0,0 +1,72 @@
+package sh.joey.mc.permissions;
+
+import io.reactivex.rxjava3.core.Single;
+
+/**
+ * Holds the process-wide {@link GroupCatalog}.
+ * <p>
+ * The catalog is loaded lazily in bulk and shared until {@link #invalidate()} is called
+ * after a group edit. Concurrent callers during a load share the same pending query,
+ * and a load that started before an invalidation is never published.
+ */
+public final class GroupCatalogCache {
+
+    private final PermissionStorage storage;
+
+    private GroupCatalog catalog;
+    private Single<GroupCatalog> loading;
+    private long generation;
+
+    public GroupCatalogCache(PermissionStorage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * Get the current catalog, loading it from the database if needed.
+     */
+    public Single<GroupCatalog> get() {
+        return Single.defer(() -> {
+            synchronized (this) {
+                if (catalog != null) {
+                    return Single.just(catalog);
+                }
+                if (loading == null) {
+                    loading = load(generation);
+                }
+                return loading;
+            }
+        });
+    }
+
+    private Single<GroupCatalog> load(long loadGeneration) {
+        return storage.loadAllGroups()
+                .map(GroupCatalog::of)
+                .doOnSuccess(loaded -> {
+                    synchronized (this) {
+                        if (generation == loadGeneration) {
+                            catalog = loaded;
+                            loading = null;
+                        }
+                    }
+                })
+                .doOnError(err -> {
+                    synchronized (this) {
+                        // Let the next caller retry
+                        if (generation == loadGeneration) {
+                            loading = null;
+                        }
+                    }
+                })
+                .cache();
+    }
+
+    /**
+     * Drop the current catalog. The next {@link #get()} reloads it.
+     * Must be called before invalidating resolved permissions after a group edit.
+     */
+    public synchronized void invalidate() {
+        generation++;
+        catalog = null;
+        loading = null;
+    }
+}
@@ -6,12 +6,19 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.permissions.Permission;
 import org.bukkit.permissions.PermissionAttachment;
+import org.bukkit.permissions.PermissionDefault;
 import sh.joey.mc.SiqiJoeyPlugin;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Attaches resolved permissions to Bukkit players.
@@ -19,17 +26,47 @@ import java.util.concurrent.ConcurrentHashMap;
  * Maintains {@link PermissionAttachment} objects and updates them when permissions change.
  * Automatically handles:
  * <ul>
- *   <li>Player join - attach permissions</li>
+ *   <li>Player join - attach permissions (synchronously when resolved during pre-login)</li>
  *   <li>World change - re-attach with world-specific permissions</li>
  *   <li>Player quit - remove attachment</li>
  * </ul>
+ * <p>
+ * Each player keeps one attachment for their whole session. Updates diff the newly
+ * resolved matcher against the one last applied and only set/unset changed nodes,
+ * so switching between worlds with identical grants doesn't recalculate anything.
+ * <p>
+ * Bukkit's {@code setPermission}/{@code unsetPermission} each recalculate the player's
+ * permissions, so the grants aren't set on the attachment node by node. Each player gets
+ * a registered {@link Permission} whose children are their grants, and the attachment
+ * only sets that one node. A diff edits the children and recalculates once.
  */
 public final class PermissionAttacher implements Disposable {
 
     private final CompositeDisposable disposables = new CompositeDisposable();
     private final SiqiJoeyPlugin plugin;
     private final PermissionCache cache;
-    private final Map<UUID, PermissionAttachment> attachments = new ConcurrentHashMap<>();
+    private final Map<UUID, Applied> attachments = new ConcurrentHashMap<>();
+
+    private static final String GRANTS_NODE_PREFIX = "siqijoey.grants.";
+
+    private final AtomicLong nodesTouched = new AtomicLong();
+    private final AtomicLong recalculations = new AtomicLong();
+    private final AtomicLong recalculationsSkipped = new AtomicLong();
+
+    /**
+     * A player's attachment, the permission carrying their grants as children, and the
+     * matcher those grants came from. The matcher is the one the cache holds.
+     */
+    private record Applied(PermissionAttachment attachment, Permission grants, PermissionMatcher matcher) {}
+
+    /**
+     * Counters for attachment updates since startup.
+     *
+     * @param nodesTouched          Permission nodes set or unset on attachments
+     * @param recalculations        Permission recalculations performed for players
+     * @param recalculationsSkipped Updates that were identical to what was applied
+     */
+    public record Stats(long nodesTouched, long recalculations, long recalculationsSkipped) {}
 
     public PermissionAttacher(SiqiJoeyPlugin plugin, PermissionCache cache) {
         this.plugin = plugin;
@@ -52,6 +89,13 @@ public final class PermissionAttacher implements Disposable {
         UUID playerId = player.getUniqueId();
         UUID worldId = player.getWorld().getUID();
 
+        // Usually resolved during pre-login - apply without waiting a tick
+        ResolvedPermissions cached = cache.getIfCached(playerId, worldId);
+        if (cached != null && plugin.getServer().isPrimaryThread()) {
+            applyToPlayer(player, cached);
+            return;
+        }
+
         cache.get(playerId, worldId)
                 .observeOn(plugin.mainScheduler())
                 .subscribe(
@@ -62,33 +106,90 @@ public final class PermissionAttacher implements Disposable {
     }
 
     private void applyToPlayer(Player player, ResolvedPermissions resolved) {
-        // Remove old attachment
-        removeAttachment(player);
+        if (!player.isOnline()) {
+            // Resolution finished after the player left
+            return;
+        }
 
-        // Create new attachment
-        PermissionAttachment attachment = player.addAttachment(plugin);
-        attachments.put(player.getUniqueId(), attachment);
+        PermissionMatcher next = resolved.matcher();
+        Applied applied = attachments.get(player.getUniqueId());
+
+        if (applied == null) {
+            Map<String, Boolean> current = next.asMap();
+            String node = GRANTS_NODE_PREFIX + player.getUniqueId();
+            var pluginManager = plugin.getServer().getPluginManager();
+            // Left over if the player's last session wasn't cleaned up
+            pluginManager.removePermission(node);
+            Permission grants = new Permission(node, PermissionDefault.FALSE, current);
+            pluginManager.addPermission(grants);
+            PermissionAttachment attachment = player.addAttachment(plugin, node, true);
+            attachments.put(player.getUniqueId(), new Applied(attachment, grants, next));
+            nodesTouched.addAndGet(current.size());
+            recalculations.incrementAndGet();
+            return;
+        }
 
-        // Apply all permissions
-        for (var entry : resolved.permissions().entrySet()) {
-            attachment.setPermission(entry.getKey(), entry.getValue());
+        // Same layers (e.g. both worlds share them) - nothing to diff or recalculate
+        PermissionMatcher previousMatcher = applied.matcher();
+        if (previousMatcher == next || previousMatcher.layers().equals(next.layers())) {
+            attachments.put(player.getUniqueId(), new Applied(applied.attachment(), applied.grants(), next));
+            recalculationsSkipped.incrementAndGet();
+            return;
         }
 
-        // Recalculate permissions
-        player.recalculatePermissions();
+        // Diff against what's already on the attachment
+        Map<String, Boolean> previous = previousMatcher.asMap();
+        Map<String, Boolean> current = next.asMap();
+        Map<String, Boolean> changed = new HashMap<>();
+        for (var entry : current.entrySet()) {
+            if (!entry.getValue().equals(previous.get(entry.getKey()))) {
+                changed.put(entry.getKey(), entry.getValue());
+            }
+        }
+        List<String> removed = new ArrayList<>();
+        for (String key : previous.keySet()) {
+            if (!current.containsKey(key)) {
+                removed.add(key);
+            }
+        }
+
+        attachments.put(player.getUniqueId(), new Applied(applied.attachment(), applied.grants(), next));
+        if (changed.isEmpty() && removed.isEmpty()) {
+            // Different layers, same effective grants
+            recalculationsSkipped.incrementAndGet();
+            return;
+        }
+
+        // getChildren() is the live map; recalculatePermissibles() applies the edit
+        Map<String, Boolean> children = applied.grants().getChildren();
+        for (String key : removed) {
+            children.remove(key);
+        }
+        children.putAll(changed);
+        applied.grants().recalculatePermissibles();
+        nodesTouched.addAndGet(changed.size() + removed.size());
+        recalculations.incrementAndGet();
     }
 
     private void removeAttachment(Player player) {
-        PermissionAttachment old = attachments.remove(player.getUniqueId());
+        Applied old = attachments.remove(player.getUniqueId());
         if (old != null) {
             try {
-                player.removeAttachment(old);
+                player.removeAttachment(old.attachment());
             } catch (IllegalArgumentException ignored) {
                 // Attachment may have already been removed
             }
+            plugin.getServer().getPluginManager().removePermission(old.grants());
         }
     }
 
+    /**
+     * Returns attachment update counters since startup.
+     */
+    public Stats stats() {
+        return new Stats(nodesTouched.get(), recalculations.get(), recalculationsSkipped.get());
+    }
+
     /**
      * Force refresh permissions for a player.
      * Use after modifying the player's permissions or group membership.
@@ -98,6 +199,24 @@ public final class PermissionAttacher implements Disposable {
         attachPermissions(player);
     }
 
+    /**
+     * Re-attach permissions for the given players, skipping any who are offline.
+     * Callers are expected to have invalidated their cache entries already.
+     *
+     * @return the number of online players that were re-resolved
+     */
+    public int refreshPlayers(Collection<UUID> playerIds) {
+        int refreshed = 0;
+        for (UUID playerId : playerIds) {
+            Player player = plugin.getServer().getPlayer(playerId);
+            if (player != null) {
+                attachPermissions(player);
+                refreshed++;
+            }
+        }
+        return refreshed;
+    }
+
     /**
      * Force refresh permissions for all online players.
      * Use after modifying group permissions or performing a reload.
@@ -118,11 +237,12 @@ public final class PermissionAttacher implements Disposable {
             Player player = plugin.getServer().getPlayer(entry.getKey());
             if (player != null) {
                 try {
-                    player.removeAttachment(entry.getValue());
+                    player.removeAttachment(entry.getValue().attachment());
                 } catch (IllegalArgumentException ignored) {
                     // Attachment may have already been removed
                 }
             }
+            plugin.getServer().getPluginManager().removePermission(entry.getValue().grants());
         }
         attachments.clear();
     }
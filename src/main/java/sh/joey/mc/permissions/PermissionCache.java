@@ -1,112 +1,241 @@
 package sh.joey.mc.permissions;
 
-import com.destroystokyo.paper.profile.PlayerProfile;
-import io.papermc.paper.connection.PlayerLoginConnection;
-import io.papermc.paper.event.connection.PlayerConnectionValidateLoginEvent;
 import io.reactivex.rxjava3.core.Single;
 import io.reactivex.rxjava3.disposables.CompositeDisposable;
 import io.reactivex.rxjava3.disposables.Disposable;
+import org.bukkit.World;
 import org.bukkit.event.EventPriority;
-import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.jetbrains.annotations.Nullable;
 import sh.joey.mc.SiqiJoeyPlugin;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Caches resolved permissions per player per world.
+ * Caches resolved permissions per player.
  * <p>
- * Automatically invalidates on:
+ * Each player is fetched from the database once into a world-independent
+ * {@link PlayerPermissions}; per-world results are cheap projections of it, so
+ * changing worlds never re-queries. Automatically invalidates on:
  * <ul>
- *   <li>World change - invalidates player's cache for all worlds</li>
  *   <li>Player quit - removes player from cache</li>
+ *   <li>Pre-login denied after the preload - removes the preloaded entry</li>
  * </ul>
  * <p>
- * Pre-populates cache on player join for fast permission checks.
+ * Concurrent misses for the same player share one in-flight resolution. An invalidation
+ * that lands while a resolution is in flight marks it stale so its result is never cached.
+ * <p>
+ * Keeps a reverse index from group name to the players whose cached permissions
+ * include that group, so a group edit only drops (and refreshes) affected players.
+ * <p>
+ * Resolves players during {@link AsyncPlayerPreLoginEvent} (projecting every loaded world)
+ * so join can attach permissions and display without waiting on the database.
  */
 public final class PermissionCache implements Disposable {
 
+    // How long pre-login may block waiting for the database
+    private static final long PRELOAD_TIMEOUT_MS = 3000;
+
     private final CompositeDisposable disposables = new CompositeDisposable();
     private final SiqiJoeyPlugin plugin;
     private final PermissionResolver resolver;
 
-    // playerId -> (worldId -> ResolvedPermissions)
-    private final Map<UUID, Map<UUID, ResolvedPermissions>> cache = new ConcurrentHashMap<>();
+    // playerId -> world-independent permissions (with memoized per-world projections)
+    private final Map<UUID, PlayerPermissions> cache = new ConcurrentHashMap<>();
+
+    // playerId -> resolution currently in flight
+    private final Map<UUID, Pending> inFlight = new ConcurrentHashMap<>();
+
+    // groupName -> players whose cached permissions include the group
+    private final Map<String, Set<UUID>> groupMembers = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * A shared in-flight resolution. Guarded by its own monitor so storing the
+     * result and marking it stale can't interleave.
+     */
+    private static final class Pending {
+        private Single<PlayerPermissions> result;
+        private boolean stale;
+    }
+
+    /**
+     * Lookup counters since startup.
+     *
+     * @param hits      Lookups served from cache
+     * @param misses    Lookups that started a resolution
+     * @param coalesced Lookups that joined a resolution already in flight
+     */
+    public record Stats(long hits, long misses, long coalesced) {}
 
-    // Cached attributes per player for synchronous access (e.g., chat formatting)
-    private final Map<UUID, PermissibleAttributes> attributeCache = new ConcurrentHashMap<>();
+    /**
+     * Estimated heap used by cached permissions.
+     *
+     * @param players        Cached players
+     * @param projections    Cached (player, world) projections
+     * @param layers         Distinct permission layers referenced (shared group layers + player layers)
+     * @param layerBytes     Estimated bytes of those layers, each counted once
+     * @param stackBytes     Estimated bytes of the per-projection layer stacks and memos
+     * @param flatBytes      Estimated bytes if every projection held its own string-keyed map
+     * @param nodes          Distinct interned permission strings
+     */
+    public record Footprint(int players, int projections, int layers, long layerBytes, long stackBytes,
+                            long flatBytes, int nodes) {}
+
+    // Rough per-entry cost of a HashMap<String, Boolean> with its own key string
+    private static final long FLAT_ENTRY_BYTES = 96;
+    // Rough fixed cost of a projection: record, matcher, layer array, memo table
+    private static final long STACK_BASE_BYTES = 400;
+
+    /**
+     * Result of a targeted invalidation.
+     *
+     * @param players Players whose cache entries were dropped
+     * @param entries Number of per-world projections dropped
+     */
+    public record Invalidation(Set<UUID> players, int entries) {}
 
-    @SuppressWarnings("UnstableApiUsage")
     public PermissionCache(SiqiJoeyPlugin plugin, PermissionResolver resolver) {
         this.plugin = plugin;
         this.resolver = resolver;
 
-        // Invalidate on world change
-        disposables.add(plugin.watchEvent(PlayerChangedWorldEvent.class)
-                .subscribe(event -> invalidatePlayer(event.getPlayer().getUniqueId())));
-
-        // Clear on quit
-        disposables.add(plugin.watchEvent(PlayerQuitEvent.class)
+        // Clear on quit - delay removal so a reconnect's pre-login resolution
+        // isn't wiped by the old session's quit
+        disposables.add(plugin.watchEvent(EventPriority.MONITOR, PlayerQuitEvent.class)
+                .delay(1, TimeUnit.SECONDS, plugin.mainScheduler())
                 .subscribe(event -> {
                     UUID playerId = event.getPlayer().getUniqueId();
-                    cache.remove(playerId);
-                    attributeCache.remove(playerId);
+                    if (plugin.getServer().getPlayer(playerId) == null) {
+                        invalidatePlayer(playerId);
+                    }
                 }));
 
-        // Pre-populate on login (earliest point where we have player UUID)
-        disposables.add(plugin.watchEvent(EventPriority.LOW, PlayerConnectionValidateLoginEvent.class)
+        // Resolve during async pre-login so join can apply permissions synchronously
+        disposables.add(plugin.watchEvent(AsyncPlayerPreLoginEvent.class)
+                .subscribe(this::preloadPlayer));
+
+        // A login denied after the preload (by a later listener) never gets a quit to clear it
+        disposables.add(plugin.watchEvent(EventPriority.MONITOR, AsyncPlayerPreLoginEvent.class)
+                .filter(event -> event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED)
                 .subscribe(event -> {
-                    if (!(event.getConnection() instanceof PlayerLoginConnection loginConn)) {
-                        return;
-                    }
-                    PlayerProfile profile = loginConn.getAuthenticatedProfile();
-                    if (profile == null || profile.getId() == null) {
-                        return;
+                    UUID playerId = event.getUniqueId();
+                    if (plugin.getServer().getPlayer(playerId) == null) {
+                        invalidatePlayer(playerId);
                     }
-                    UUID playerId = profile.getId();
-                    String playerName = profile.getName();
-                    // Use server's default spawn world for pre-population
-                    UUID worldId = plugin.getServer().getWorlds().getFirst().getUID();
-                    get(playerId, worldId)
-                            .subscribe(
-                                    resolved -> {},
-                                    err -> plugin.getLogger().warning(
-                                            "Failed to pre-populate permissions for " + playerName + ": " + err.getMessage())
-                            );
                 }));
     }
 
+    /**
+     * Resolve a player's permissions during async pre-login, blocking up to
+     * {@link #PRELOAD_TIMEOUT_MS}. Projects every loaded world so the first check
+     * anywhere is a hit. On timeout the resolution keeps running and join falls back
+     * to the async path.
+     */
+    private void preloadPlayer(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return; // Don't load for denied logins
+        }
+
+        UUID playerId = event.getUniqueId();
+        List<UUID> worldIds = plugin.getServer().getWorlds().stream()
+                .map(World::getUID)
+                .toList();
+        try {
+            PlayerPermissions player = getPlayer(playerId)
+                    .timeout(PRELOAD_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                    .blockingGet();
+            worldIds.forEach(player::forWorld);
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to preload permissions for " + event.getName() + ": " + e.getMessage());
+        }
+    }
+
     /**
      * Get resolved permissions for a player in a world.
      * Returns cached value if available, otherwise resolves and caches.
      */
     public Single<ResolvedPermissions> get(UUID playerId, UUID worldId) {
-        return Single.defer(() -> {
-            Map<UUID, ResolvedPermissions> playerCache = cache.computeIfAbsent(playerId,
-                    k -> new ConcurrentHashMap<>());
+        return getPlayer(playerId).map(player -> player.forWorld(worldId));
+    }
+
+    /**
+     * Get resolved permissions for a player in a world only if the player is already cached.
+     * Never starts a resolution; use for synchronous paths like join.
+     */
+    public @Nullable ResolvedPermissions getIfCached(UUID playerId, UUID worldId) {
+        PlayerPermissions cached = cache.get(playerId);
+        if (cached == null) {
+            return null;
+        }
+        hits.incrementAndGet();
+        return cached.forWorld(worldId);
+    }
 
-            ResolvedPermissions cached = playerCache.get(worldId);
+    /**
+     * Get a player's world-independent permissions.
+     * Returns cached value if available, otherwise resolves and caches.
+     */
+    public Single<PlayerPermissions> getPlayer(UUID playerId) {
+        return Single.defer(() -> {
+            PlayerPermissions cached = cache.get(playerId);
             if (cached != null) {
+                hits.incrementAndGet();
                 return Single.just(cached);
             }
 
-            return resolver.resolve(playerId, worldId)
-                    .doOnSuccess(resolved -> {
-                        playerCache.put(worldId, resolved);
-                        // Also cache attributes for synchronous access
-                        attributeCache.put(playerId, resolved.attributes());
-                    });
+            boolean[] started = {false};
+            Pending pending = inFlight.computeIfAbsent(playerId, id -> {
+                started[0] = true;
+                return startResolution(id);
+            });
+            if (started[0]) {
+                misses.incrementAndGet();
+            } else {
+                coalesced.incrementAndGet();
+            }
+            return pending.result;
         });
     }
 
+    private Pending startResolution(UUID playerId) {
+        Pending pending = new Pending();
+        pending.result = resolver.resolvePlayer(playerId)
+                .doOnSuccess(resolved -> {
+                    synchronized (pending) {
+                        if (pending.stale) {
+                            return;
+                        }
+                        cache.put(playerId, resolved);
+                        for (String group : resolved.groups()) {
+                            groupMembers.computeIfAbsent(group, k -> ConcurrentHashMap.newKeySet()).add(playerId);
+                        }
+                    }
+                })
+                .doFinally(() -> inFlight.remove(playerId, pending))
+                .cache();
+        return pending;
+    }
+
     /**
      * Get cached attributes for a player (synchronous).
      * Returns EMPTY if not cached. Use this for chat formatting where async isn't practical.
      */
     public PermissibleAttributes getCachedAttributes(UUID playerId) {
-        return attributeCache.getOrDefault(playerId, PermissibleAttributes.EMPTY);
+        PlayerPermissions cached = cache.get(playerId);
+        return cached != null ? cached.attributes() : PermissibleAttributes.EMPTY;
     }
 
     /**
@@ -114,29 +243,82 @@ public final class PermissionCache implements Disposable {
      * Called when player's permissions change.
      */
     public void invalidatePlayer(UUID playerId) {
-        cache.remove(playerId);
-        attributeCache.remove(playerId);
+        removePlayer(playerId);
     }
 
     /**
-     * Invalidate all cached permissions for a group.
-     * Called when group permissions change.
+     * Invalidate cached permissions for every player whose resolution included a group.
+     * Called when group permissions or attributes change.
      * <p>
-     * For simplicity, invalidates all caches. A more sophisticated approach
-     * would track which players are in which groups.
+     * Players who aren't members are untouched. Changes that alter membership for
+     * players outside the index (e.g. making a group default) need {@link #invalidateAll()}.
+     *
+     * @return the players and number of entries that were dropped, including players
+     *         whose in-flight resolution was discarded
      */
-    public void invalidateGroup(String groupName) {
-        // Clear all caches - group membership affects many players
-        cache.clear();
-        attributeCache.clear();
+    public Invalidation invalidateGroup(String groupName) {
+        // In-flight resolutions may have read the old group, and aren't indexed yet
+        Set<UUID> players = discardInFlight();
+
+        Set<UUID> members = groupMembers.remove(Group.normalize(groupName));
+        int entries = 0;
+        if (members != null) {
+            for (UUID playerId : Set.copyOf(members)) {
+                entries += removePlayer(playerId);
+                players.add(playerId);
+            }
+        }
+        return new Invalidation(players, entries);
     }
 
     /**
      * Invalidate all caches.
+     *
+     * @return the players and number of entries that were dropped, including players
+     *         whose in-flight resolution was discarded
+     */
+    public Invalidation invalidateAll() {
+        Set<UUID> players = discardInFlight();
+        int entries = 0;
+        for (UUID playerId : Set.copyOf(cache.keySet())) {
+            entries += removePlayer(playerId);
+            players.add(playerId);
+        }
+        groupMembers.clear();
+        return new Invalidation(players, entries);
+    }
+
+    /**
+     * Marks every in-flight resolution stale.
+     *
+     * @return the players whose resolution was discarded
+     */
+    private Set<UUID> discardInFlight() {
+        Set<UUID> players = new HashSet<>(inFlight.keySet());
+        players.forEach(this::markStale);
+        return players;
+    }
+
+    /**
+     * Drops a player's cache and their reverse index entries.
+     *
+     * @return the number of per-world projections dropped
      */
-    public void invalidateAll() {
-        cache.clear();
-        attributeCache.clear();
+    private int removePlayer(UUID playerId) {
+        // Mark before removing so an in-flight result can't be stored after the removal
+        markStale(playerId);
+        PlayerPermissions removed = cache.remove(playerId);
+        if (removed == null) {
+            return 0;
+        }
+
+        for (String group : removed.groups()) {
+            Set<UUID> members = groupMembers.get(group);
+            if (members != null) {
+                members.remove(playerId);
+            }
+        }
+        return removed.projectionCount();
     }
 
     /**
@@ -146,11 +328,57 @@ public final class PermissionCache implements Disposable {
         return cache.containsKey(playerId);
     }
 
+    private void markStale(UUID playerId) {
+        Pending pending = inFlight.remove(playerId);
+        if (pending != null) {
+            synchronized (pending) {
+                pending.stale = true;
+            }
+        }
+    }
+
+    /**
+     * Returns lookup counters since startup.
+     */
+    public Stats stats() {
+        return new Stats(hits.get(), misses.get(), coalesced.get());
+    }
+
+    /**
+     * Estimate the heap used by cached permissions. Walks every cached projection;
+     * intended for admin reporting, not hot paths.
+     */
+    public Footprint footprint() {
+        Set<PermissionLayer> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        int players = 0;
+        int projections = 0;
+        long layerBytes = 0;
+        long stackBytes = 0;
+        long flatBytes = 0;
+
+        for (PlayerPermissions player : cache.values()) {
+            players++;
+            for (ResolvedPermissions resolved : player.projections()) {
+                projections++;
+                List<PermissionLayer> layers = resolved.matcher().layers();
+                stackBytes += STACK_BASE_BYTES + 4L * layers.size();
+                flatBytes += FLAT_ENTRY_BYTES * resolved.permissionCount();
+                for (PermissionLayer layer : layers) {
+                    if (seen.add(layer)) {
+                        layerBytes += layer.estimatedBytes();
+                    }
+                }
+            }
+        }
+
+        return new Footprint(players, projections, seen.size(), layerBytes, stackBytes, flatBytes,
+                PermissionNodes.count());
+    }
+
     @Override
     public void dispose() {
         disposables.dispose();
-        cache.clear();
-        attributeCache.clear();
+        invalidateAll();
     }
 
     @Override
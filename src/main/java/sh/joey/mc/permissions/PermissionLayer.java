@@ -0,0 +1,251 @@
+package sh.joey.mc.permissions;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable, compiled set of grants that contribute to a resolution as one unit:
+ * a group's grants in one world, or a player's own grants in one world.
+ * <p>
+ * Grants are stored as sorted interned node IDs (see {@link PermissionNodes}) plus states,
+ * and compiled into a segment trie: each node represents a dotted path ({@code a},
+ * {@code a.b}, ...) and stores the state of the exact grant for that path as well as
+ * the state of its {@code path.*} wildcard. Layers compare by content so identical
+ * layers (e.g. a group with only global grants, in every world) can be shared.
+ * <p>
+ * {@link PermissionMatcher} stacks layers to answer checks.
+ */
+public final class PermissionLayer {
+
+    // Declared before EMPTY, which needs them to compile
+    private static final String[] NO_KEYS = new String[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    public static final PermissionLayer EMPTY = of(Map.of());
+
+    private final int[] nodes;
+    private final boolean[] states;
+    private final Node root;
+    private final long estimatedBytes;
+    private final int hash;
+
+    private PermissionLayer(int[] nodes, boolean[] states, Node root, long estimatedBytes) {
+        this.nodes = nodes;
+        this.states = states;
+        this.root = root;
+        this.estimatedBytes = estimatedBytes;
+        this.hash = 31 * Arrays.hashCode(nodes) + Arrays.hashCode(states);
+    }
+
+    /**
+     * Compile a resolved permission map (lowercase permission string to state).
+     * Invalid permission strings are skipped, as they could never match.
+     */
+    public static PermissionLayer of(Map<String, Boolean> permissions) {
+        int[] ids = new int[permissions.size()];
+        Map<Integer, Boolean> byId = new HashMap<>();
+        int n = 0;
+        for (var entry : permissions.entrySet()) {
+            if (ParsedPermission.parse(entry.getKey()).isEmpty()) {
+                continue;
+            }
+            int id = PermissionNodes.intern(entry.getKey());
+            ids[n++] = id;
+            byId.put(id, entry.getValue());
+        }
+        ids = Arrays.copyOf(ids, n);
+        Arrays.sort(ids);
+
+        boolean[] states = new boolean[n];
+        Builder root = new Builder();
+        for (int i = 0; i < n; i++) {
+            states[i] = byId.get(ids[i]);
+            root.add(PermissionNodes.name(ids[i]), states[i]);
+        }
+
+        long[] bytes = {16L + 4L * n + 16L + n};
+        Node compiled = root.build(bytes);
+        return new PermissionLayer(ids, states, compiled, bytes[0]);
+    }
+
+    /**
+     * Find the most specific grant in this layer matching a syntactically valid permission.
+     * An exact grant for an n-segment permission has specificity n; a wildcard
+     * {@code a.b.*} has specificity 2; {@code *} has specificity 0.
+     *
+     * @return {@code (specificity << 1) | state}, or -1 if nothing matches
+     */
+    int lookup(String permission) {
+        Node node = root;
+        int best = -1;
+        int depth = 0;
+        int start = 0;
+        int length = permission.length();
+
+        while (true) {
+            if (start >= length) {
+                // Consumed the whole target - an exact grant is the most specific match
+                return node.exact != null ? encode(depth, node.exact) : best;
+            }
+            // A wildcard here only covers paths with at least one more segment
+            if (node.wildcard != null) {
+                best = encode(depth, node.wildcard);
+            }
+
+            int end = permission.indexOf('.', start);
+            if (end < 0) {
+                end = length;
+            }
+
+            Node next = node.find(permission, start, end);
+            if (next == null) {
+                return best;
+            }
+            node = next;
+            depth++;
+            start = end + 1;
+        }
+    }
+
+    private static int encode(int specificity, boolean state) {
+        return (specificity << 1) | (state ? 1 : 0);
+    }
+
+    /**
+     * Returns the number of grants in this layer.
+     */
+    public int size() {
+        return nodes.length;
+    }
+
+    /**
+     * Returns the node ID of the grant at an index (IDs are sorted ascending).
+     */
+    public int nodeAt(int index) {
+        return nodes[index];
+    }
+
+    /**
+     * Returns the state of the grant at an index.
+     */
+    public boolean stateAt(int index) {
+        return states[index];
+    }
+
+    /**
+     * Rough heap size of this layer's arrays and trie, for footprint reporting.
+     */
+    public long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof PermissionLayer other
+                && hash == other.hash
+                && Arrays.equals(nodes, other.nodes)
+                && Arrays.equals(states, other.states));
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Immutable trie node. Children are kept in an open-addressed table keyed by the
+     * case-insensitive hash of the segment so lookups can hash a region of the target
+     * string in place.
+     */
+    private static final class Node {
+        private final Boolean exact;
+        private final Boolean wildcard;
+        private final String[] keys;
+        private final Node[] children;
+        private final int mask;
+
+        private Node(Boolean exact, Boolean wildcard, String[] keys, Node[] children) {
+            this.exact = exact;
+            this.wildcard = wildcard;
+            this.keys = keys;
+            this.children = children;
+            this.mask = keys.length - 1;
+        }
+
+        Node find(String target, int start, int end) {
+            if (keys.length == 0) {
+                return null;
+            }
+            int len = end - start;
+            int idx = hash(target, start, end) & mask;
+            while (true) {
+                String key = keys[idx];
+                if (key == null) {
+                    return null;
+                }
+                if (key.length() == len && key.regionMatches(true, 0, target, start, len)) {
+                    return children[idx];
+                }
+                idx = (idx + 1) & mask;
+            }
+        }
+    }
+
+    private static int hash(CharSequence s, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + Character.toLowerCase(s.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Mutable node used while compiling.
+     */
+    private static final class Builder {
+        private Boolean exact;
+        private Boolean wildcard;
+        private final Map<String, Builder> children = new HashMap<>();
+
+        void add(String permission, boolean state) {
+            Builder node = this;
+            for (ParsedPermission.PermissionToken token : ParsedPermission.parse(permission).orElseThrow().tokens()) {
+                if (token instanceof ParsedPermission.PermLiteral lit) {
+                    node = node.children.computeIfAbsent(lit.literal().toLowerCase().intern(), k -> new Builder());
+                } else if (token instanceof ParsedPermission.PermWildcard) {
+                    node.wildcard = state;
+                    return;
+                }
+            }
+            node.exact = state;
+        }
+
+        Node build(long[] bytes) {
+            // Object header + fields
+            bytes[0] += 32;
+            if (children.isEmpty()) {
+                return new Node(exact, wildcard, NO_KEYS, NO_CHILDREN);
+            }
+
+            // Keep the table at most half full so probes stay short
+            int capacity = Integer.highestOneBit(children.size() * 2 - 1) << 1;
+            String[] tableKeys = new String[capacity];
+            Node[] tableChildren = new Node[capacity];
+            int mask = capacity - 1;
+            bytes[0] += 2 * (16L + 4L * capacity);
+
+            for (var entry : children.entrySet()) {
+                String key = entry.getKey();
+                int idx = hash(key, 0, key.length()) & mask;
+                while (tableKeys[idx] != null) {
+                    idx = (idx + 1) & mask;
+                }
+                tableKeys[idx] = key;
+                tableChildren[idx] = entry.getValue().build(bytes);
+            }
+
+            return new Node(exact, wildcard, tableKeys, tableChildren);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package sh.joey.mc.permissions;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled, immutable matcher for a resolved permission set.
+ * <p>
+ * The set is a stack of {@link PermissionLayer}s in priority order: the player's own
+ * grants first, then each group's grants, highest priority first. Group layers are
+ * shared between every player and world that uses them; only the stack is per player.
+ * <p>
+ * A check walks each layer's segment trie without splitting or parsing the target
+ * and keeps the most specific match, the earliest layer winning ties. This gives the
+ * same answer as {@link PermissionResolver} flattening all grants (same permission
+ * string: higher priority wins) and then scanning them with
+ * {@link ParsedPermission#matches(ParsedPermission)} for the most specific one:
+ * <ul>
+ *   <li>An exact grant for the target is the most specific match</li>
+ *   <li>Otherwise the deepest matching wildcard wins ({@code a.b.*} beats {@code a.*} beats {@code *})</li>
+ *   <li>No match = not granted</li>
+ * </ul>
+ * A small direct-mapped memo caches recent answers so repeated checks of the same
+ * permission string (the common case for Bukkit) skip the walk entirely. A slot holds
+ * the string in either the granted or the denied array, so filling it allocates
+ * nothing and a racing reader can never pair a string with another one's answer.
+ */
+public final class PermissionMatcher {
+
+    public static final PermissionMatcher EMPTY = of(List.of());
+
+    private static final int MEMO_SIZE = 64;
+
+    private final PermissionLayer[] layers;
+    private final String[] grantedMemo = new String[MEMO_SIZE];
+    private final String[] deniedMemo = new String[MEMO_SIZE];
+    private final int size;
+    private volatile Map<String, Boolean> flattened;
+
+    private PermissionMatcher(PermissionLayer[] layers) {
+        this.layers = layers;
+        this.size = countDistinct(layers);
+    }
+
+    private static int countDistinct(PermissionLayer[] layers) {
+        if (layers.length == 1) {
+            return layers[0].size();
+        }
+        BitSet seen = new BitSet();
+        for (PermissionLayer layer : layers) {
+            for (int i = 0; i < layer.size(); i++) {
+                seen.set(layer.nodeAt(i));
+            }
+        }
+        return seen.cardinality();
+    }
+
+    /**
+     * Stack layers, highest priority first. Empty layers are dropped.
+     */
+    public static PermissionMatcher of(List<PermissionLayer> layers) {
+        return new PermissionMatcher(layers.stream()
+                .filter(layer -> layer.size() > 0)
+                .toArray(PermissionLayer[]::new));
+    }
+
+    /**
+     * Compile a single resolved permission map (lowercase permission string to state).
+     * Invalid permission strings are skipped, as they could never match.
+     */
+    public static PermissionMatcher compile(Map<String, Boolean> permissions) {
+        return of(List.of(PermissionLayer.of(permissions)));
+    }
+
+    /**
+     * Check if a permission is granted.
+     *
+     * @param permission the permission to check (e.g., "worldedit.wand")
+     * @return true if the most specific matching grant allows it, false otherwise
+     */
+    public boolean hasPermission(String permission) {
+        if (permission == null) {
+            return false;
+        }
+
+        int slot = (permission.hashCode() & 0x7fffffff) % MEMO_SIZE;
+        if (memoized(grantedMemo[slot], permission)) {
+            return true;
+        }
+        if (memoized(deniedMemo[slot], permission)) {
+            return false;
+        }
+
+        boolean state = lookup(permission);
+        if (state) {
+            deniedMemo[slot] = null;
+            grantedMemo[slot] = permission;
+        } else {
+            grantedMemo[slot] = null;
+            deniedMemo[slot] = permission;
+        }
+        return state;
+    }
+
+    private static boolean memoized(String cached, String permission) {
+        return cached != null && (cached == permission || cached.equals(permission));
+    }
+
+    private boolean lookup(String permission) {
+        if (!isValid(permission)) {
+            return false;
+        }
+
+        int best = -1;
+        for (PermissionLayer layer : layers) {
+            int match = layer.lookup(permission);
+            // Strictly more specific only - earlier (higher priority) layers win ties
+            if (match >= 0 && (best < 0 || (match >> 1) > (best >> 1))) {
+                best = match;
+            }
+        }
+        return best >= 0 && (best & 1) == 1;
+    }
+
+    /**
+     * Syntax check equivalent to {@link ParsedPermission#parse(String)} succeeding,
+     * without building tokens.
+     */
+    private static boolean isValid(String permission) {
+        int length = permission.length();
+        if (length == 0) {
+            return false;
+        }
+
+        int segmentLength = 0;
+        for (int i = 0; i < length; i++) {
+            char c = permission.charAt(i);
+            if (c == '.') {
+                if (segmentLength == 0) {
+                    return false;
+                }
+                segmentLength = 0;
+            } else if (c == '*') {
+                // Wildcard must be the whole final segment
+                return segmentLength == 0 && i == length - 1;
+            } else if (Character.isLetterOrDigit(c) || c == '_' || c == '-') {
+                segmentLength++;
+            } else {
+                return false;
+            }
+        }
+        return segmentLength != 0;
+    }
+
+    /**
+     * Returns the effective grants as an unmodifiable map of permission string to state,
+     * with higher-priority layers shadowing lower ones. Built on first use and kept.
+     */
+    public Map<String, Boolean> asMap() {
+        Map<String, Boolean> result = flattened;
+        if (result == null) {
+            Map<String, Boolean> map = new LinkedHashMap<>();
+            for (PermissionLayer layer : layers) {
+                for (int i = 0; i < layer.size(); i++) {
+                    map.putIfAbsent(PermissionNodes.name(layer.nodeAt(i)), layer.stateAt(i));
+                }
+            }
+            result = Collections.unmodifiableMap(map);
+            flattened = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of distinct permissions across all layers.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the layers in priority order.
+     */
+    public List<PermissionLayer> layers() {
+        return List.of(layers);
+    }
+}
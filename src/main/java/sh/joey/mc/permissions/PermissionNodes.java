@@ -0,0 +1,63 @@
+package sh.joey.mc.permissions;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide interner mapping permission strings to small integer node IDs.
+ * <p>
+ * Permission layers store node IDs instead of their own string copies, so each distinct
+ * permission string exists once no matter how many groups, players or worlds use it.
+ * IDs are never reused; the table grows with the number of distinct permissions ever granted.
+ */
+public final class PermissionNodes {
+
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[64];
+    private static int count = 0;
+
+    private PermissionNodes() {}
+
+    /**
+     * Returns the node ID for a (lowercase) permission string, assigning one if needed.
+     */
+    public static int intern(String permission) {
+        Integer id = IDS.get(permission);
+        if (id != null) {
+            return id;
+        }
+
+        synchronized (PermissionNodes.class) {
+            id = IDS.get(permission);
+            if (id != null) {
+                return id;
+            }
+
+            String[] table = names;
+            if (count == table.length) {
+                table = Arrays.copyOf(table, table.length * 2);
+            }
+            int newId = count++;
+            table[newId] = permission;
+            // Publish the name before the ID can be observed
+            names = table;
+            IDS.put(permission, newId);
+            return newId;
+        }
+    }
+
+    /**
+     * Returns the permission string for a node ID.
+     */
+    public static String name(int id) {
+        return names[id];
+    }
+
+    /**
+     * Returns the number of distinct permission strings interned so far.
+     */
+    public static int count() {
+        return IDS.size();
+    }
+}
@@ -2,7 +2,6 @@ package sh.joey.mc.permissions;
 
 import io.reactivex.rxjava3.core.Single;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,9 +23,11 @@ import java.util.UUID;
 public final class PermissionResolver {
 
     private final PermissionStorage storage;
+    private final GroupCatalogCache groupCatalog;
 
-    public PermissionResolver(PermissionStorage storage) {
+    public PermissionResolver(PermissionStorage storage, GroupCatalogCache groupCatalog) {
         this.storage = storage;
+        this.groupCatalog = groupCatalog;
     }
 
     /**
@@ -37,42 +38,45 @@ public final class PermissionResolver {
      * @return A Single emitting the resolved permissions
      */
     public Single<ResolvedPermissions> resolve(UUID playerId, UUID worldId) {
+        return resolvePlayer(playerId).map(player -> player.forWorld(worldId));
+    }
+
+    /**
+     * Resolve a player's world-independent permissions (steps 1-4).
+     * Groups come from the shared {@link GroupCatalog}; only the player's own rows are queried.
+     * Per-world filtering happens in {@link PlayerPermissions#forWorld(UUID)}.
+     *
+     * @param playerId The player's UUID
+     * @return A Single emitting the player's permissions
+     */
+    public Single<PlayerPermissions> resolvePlayer(UUID playerId) {
         return Single.zip(
                 storage.getPlayerAttributes(playerId)
                         .defaultIfEmpty(PermissibleAttributes.EMPTY),
                 storage.getPlayerPermissions(playerId).toList(),
-                storage.getPlayerGroups(playerId)
-                        .toSortedList((a, b) -> Integer.compare(b.priority(), a.priority())),
-                (PermissibleAttributes playerAttrs, List<PermissionGrant> playerGrants, List<Group> groups) ->
-                        buildResolvedPermissions(playerId, worldId, playerAttrs, playerGrants, groups)
+                storage.getPlayerExplicitGroups(playerId).toList(),
+                groupCatalog.get(),
+                (PermissibleAttributes playerAttrs, List<PermissionGrant> playerGrants,
+                 List<String> explicitGroups, GroupCatalog catalog) ->
+                        buildPlayerPermissions(playerId, playerAttrs, playerGrants,
+                                catalog.groupsFor(explicitGroups), catalog)
         );
     }
 
-    private ResolvedPermissions buildResolvedPermissions(
+    private PlayerPermissions buildPlayerPermissions(
             UUID playerId,
-            UUID worldId,
             PermissibleAttributes playerAttrs,
             List<PermissionGrant> playerGrants,
-            List<Group> groups
+            List<Group> groups,
+            GroupCatalog catalog
     ) {
         // 1. Resolve attributes (player overrides group)
         PermissibleAttributes resolvedAttrs = resolveAttributes(playerAttrs, groups);
 
-        // 2. Collect all grants with priority ordering
-        List<PermissionGrant> allGrants = new ArrayList<>();
-
-        // Player grants first (already have Integer.MAX_VALUE priority from storage)
-        allGrants.addAll(playerGrants);
-
-        // Group grants in priority order (groups already sorted by priority DESC)
-        for (Group group : groups) {
-            allGrants.addAll(group.grants());
-        }
-
-        // 3. Filter by world and resolve conflicts
-        Map<String, Boolean> resolved = resolveGrants(allGrants, worldId);
-
-        return new ResolvedPermissions(playerId, worldId, resolvedAttrs, resolved);
+        // 2. Player grants (Integer.MAX_VALUE priority from storage) and groups (sorted by
+        //    priority DESC) become layers; world filtering and conflict resolution happen
+        //    per layer in per-world projections, with earlier layers winning
+        return new PlayerPermissions(playerId, resolvedAttrs, groups, List.copyOf(playerGrants), catalog);
     }
 
     private PermissibleAttributes resolveAttributes(PermissibleAttributes playerAttrs, List<Group> groups) {
@@ -86,7 +90,10 @@ public final class PermissionResolver {
         return result;
     }
 
-    private Map<String, Boolean> resolveGrants(List<PermissionGrant> grants, UUID worldId) {
+    /**
+     * Filter grants to a world and resolve conflicts per permission string.
+     */
+    static Map<String, Boolean> resolveGrants(List<PermissionGrant> grants, UUID worldId) {
         // Track best grant for each permission (by specificity then priority)
         Map<String, PermissionGrant> best = new HashMap<>();
 
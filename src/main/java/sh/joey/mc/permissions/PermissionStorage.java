@@ -5,6 +5,7 @@ import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.core.Single;
 import org.jetbrains.annotations.Nullable;
+import sh.joey.mc.storage.Priority;
 import sh.joey.mc.storage.StorageService;
 
 import java.sql.PreparedStatement;
@@ -12,7 +13,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -22,9 +25,12 @@ import java.util.UUID;
 public final class PermissionStorage {
 
     private final StorageService storage;
+    // Reads PermissionResolver makes while a player joins
+    private final StorageService login;
 
     public PermissionStorage(StorageService storage) {
         this.storage = storage;
+        this.login = storage.withPriority(Priority.LOGIN_CRITICAL);
     }
 
     // ========== Group Operations ==========
@@ -69,54 +75,22 @@ public final class PermissionStorage {
      * Get all groups with their permission grants.
      */
     public Flowable<Group> getAllGroups() {
-        return storage.queryFlowable(conn -> {
-            String sql = """
-                    SELECT canonical_name, display_name, priority, is_default,
-                           chat_prefix, chat_suffix, nameplate_prefix, nameplate_suffix, name_color,
-                           created_at, updated_at
-                    FROM perm_groups
-                    ORDER BY priority DESC, canonical_name
-                    """;
+        return storage.queryFlowable(conn -> loadGroupsSync(conn, "", null));
+    }
 
-            List<Group> groups = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql);
-                 ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Group group = readGroup(rs);
-                    // Load grants for each group
-                    List<PermissionGrant> grants = getGroupGrantsSync(conn, group.canonicalName(), group.priority());
-                    groups.add(group.withGrants(grants));
-                }
-            }
-            return groups;
-        });
+    /**
+     * Load every group with its grants in two set-based queries (one for groups, one for all grants).
+     * Returns groups ordered by priority (highest first). Backs {@link GroupCatalog}.
+     */
+    public Single<List<Group>> loadAllGroups() {
+        return login.query(conn -> loadGroupsSync(conn, "", null));
     }
 
     /**
      * Get all default groups (groups where is_default = true).
      */
     public Flowable<Group> getDefaultGroups() {
-        return storage.queryFlowable(conn -> {
-            String sql = """
-                    SELECT canonical_name, display_name, priority, is_default,
-                           chat_prefix, chat_suffix, nameplate_prefix, nameplate_suffix, name_color,
-                           created_at, updated_at
-                    FROM perm_groups
-                    WHERE is_default = TRUE
-                    ORDER BY priority DESC
-                    """;
-
-            List<Group> groups = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql);
-                 ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Group group = readGroup(rs);
-                    List<PermissionGrant> grants = getGroupGrantsSync(conn, group.canonicalName(), group.priority());
-                    groups.add(group.withGrants(grants));
-                }
-            }
-            return groups;
-        });
+        return storage.queryFlowable(conn -> loadGroupsSync(conn, "WHERE g.is_default = TRUE", null));
     }
 
     /**
@@ -284,7 +258,7 @@ public final class PermissionStorage {
      * Get display attributes for a player.
      */
     public Maybe<PermissibleAttributes> getPlayerAttributes(UUID playerId) {
-        return storage.queryMaybe(conn -> {
+        return login.queryMaybe(conn -> {
             String sql = """
                     SELECT chat_prefix, chat_suffix, nameplate_prefix, nameplate_suffix, name_color
                     FROM perm_players
@@ -344,7 +318,7 @@ public final class PermissionStorage {
      * Get all permission grants for a player.
      */
     public Flowable<PermissionGrant> getPlayerPermissions(UUID playerId) {
-        return storage.queryFlowable(conn -> {
+        return login.queryFlowable(conn -> {
             String sql = """
                     SELECT id, permission, world_id, state
                     FROM player_permissions
@@ -410,40 +384,19 @@ public final class PermissionStorage {
      * Returns groups ordered by priority (highest first).
      */
     public Flowable<Group> getPlayerGroups(UUID playerId) {
-        return storage.queryFlowable(conn -> {
-            // Get explicit memberships plus default groups
-            String sql = """
-                    SELECT g.canonical_name, g.display_name, g.priority, g.is_default,
-                           g.chat_prefix, g.chat_suffix, g.nameplate_prefix, g.nameplate_suffix, g.name_color,
-                           g.created_at, g.updated_at
-                    FROM perm_groups g
-                    WHERE g.is_default = TRUE
-                       OR g.canonical_name IN (
-                           SELECT group_name FROM player_groups WHERE player_id = ?
-                       )
-                    ORDER BY g.priority DESC
-                    """;
-
-            List<Group> groups = new ArrayList<>();
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setObject(1, playerId);
-                try (ResultSet rs = stmt.executeQuery()) {
-                    while (rs.next()) {
-                        Group group = readGroup(rs);
-                        List<PermissionGrant> grants = getGroupGrantsSync(conn, group.canonicalName(), group.priority());
-                        groups.add(group.withGrants(grants));
-                    }
-                }
-            }
-            return groups;
-        });
+        return storage.queryFlowable(conn -> loadGroupsSync(conn, """
+                WHERE g.is_default = TRUE
+                   OR g.canonical_name IN (
+                       SELECT group_name FROM player_groups WHERE player_id = ?
+                   )
+                """, playerId));
     }
 
     /**
      * Get explicit group memberships for a player (not including default groups).
      */
     public Flowable<String> getPlayerExplicitGroups(UUID playerId) {
-        return storage.queryFlowable(conn -> {
+        return login.queryFlowable(conn -> {
             String sql = "SELECT group_name FROM player_groups WHERE player_id = ?";
             List<String> groups = new ArrayList<>();
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -514,6 +467,77 @@ public final class PermissionStorage {
 
     // ========== Helper Methods ==========
 
+    /**
+     * Load groups matching a filter on {@code perm_groups g}, plus all of their grants,
+     * using one query for the groups and one for the grants.
+     *
+     * @param where    WHERE clause over alias {@code g} (constant SQL), or empty for all groups
+     * @param playerId bound to the single {@code ?} in the filter, if non-null
+     */
+    private List<Group> loadGroupsSync(java.sql.Connection conn, String where, @Nullable UUID playerId) throws SQLException {
+        String groupSql = """
+                SELECT g.canonical_name, g.display_name, g.priority, g.is_default,
+                       g.chat_prefix, g.chat_suffix, g.nameplate_prefix, g.nameplate_suffix, g.name_color,
+                       g.created_at, g.updated_at
+                FROM perm_groups g
+                %s
+                ORDER BY g.priority DESC, g.canonical_name
+                """.formatted(where);
+
+        List<Group> groups = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(groupSql)) {
+            if (playerId != null) {
+                stmt.setObject(1, playerId);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    groups.add(readGroup(rs));
+                }
+            }
+        }
+
+        if (groups.isEmpty()) {
+            return groups;
+        }
+
+        String grantSql = """
+                SELECT gp.group_name, gp.id, gp.permission, gp.world_id, gp.state
+                FROM group_permissions gp
+                JOIN perm_groups g ON g.canonical_name = gp.group_name
+                %s
+                """.formatted(where);
+
+        Map<String, Integer> priorities = new HashMap<>();
+        for (Group group : groups) {
+            priorities.put(group.canonicalName(), group.priority());
+        }
+
+        Map<String, List<PermissionGrant>> grantsByGroup = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(grantSql)) {
+            if (playerId != null) {
+                stmt.setObject(1, playerId);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String groupName = rs.getString("group_name");
+                    Integer priority = priorities.get(groupName);
+                    if (priority == null) {
+                        // Group was created between the two queries
+                        continue;
+                    }
+                    grantsByGroup.computeIfAbsent(groupName, k -> new ArrayList<>())
+                            .add(readGrant(rs, priority));
+                }
+            }
+        }
+
+        List<Group> result = new ArrayList<>(groups.size());
+        for (Group group : groups) {
+            result.add(group.withGrants(grantsByGroup.getOrDefault(group.canonicalName(), List.of())));
+        }
+        return result;
+    }
+
     private List<PermissionGrant> getGroupGrantsSync(java.sql.Connection conn, String groupName, int priority) throws SQLException {
         String sql = """
                 SELECT id, permission, world_id, state
@@ -0,0 +1,91 @@
+package sh.joey.mc.permissions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A player's permission data independent of world: their merged attributes, the groups
+ * they belong to, and every grant that could apply to them in priority order.
+ * <p>
+ * Produced by one database fetch in {@link PermissionResolver#resolvePlayer(UUID)}.
+ * Per-world {@link ResolvedPermissions} are projected from it on demand and memoized,
+ * so moving between worlds never goes back to the database. A projection is a stack of
+ * the player's own layer over the groups' shared layers from the {@link GroupCatalog},
+ * so only the player's own grants cost per-player memory.
+ */
+public final class PlayerPermissions {
+
+    private final UUID playerId;
+    private final PermissibleAttributes attributes;
+    private final List<String> groups;
+    private final List<Group> groupList;
+    private final List<PermissionGrant> playerGrants;
+    private final GroupCatalog catalog;
+    private final Map<UUID, ResolvedPermissions> projections = new ConcurrentHashMap<>();
+
+    PlayerPermissions(
+            UUID playerId,
+            PermissibleAttributes attributes,
+            List<Group> groups,
+            List<PermissionGrant> playerGrants,
+            GroupCatalog catalog
+    ) {
+        this.playerId = playerId;
+        this.attributes = attributes;
+        this.groups = groups.stream().map(Group::canonicalName).toList();
+        this.groupList = groups;
+        this.playerGrants = playerGrants;
+        this.catalog = catalog;
+    }
+
+    /**
+     * Returns the resolved permissions for a world, projecting and caching them on first use.
+     */
+    public ResolvedPermissions forWorld(UUID worldId) {
+        return projections.computeIfAbsent(worldId, id -> {
+            List<PermissionLayer> layers = new ArrayList<>(groupList.size() + 1);
+            // Player grants outrank every group, then groups by priority (already sorted)
+            layers.add(PermissionLayer.of(PermissionResolver.resolveGrants(playerGrants, id)));
+            for (Group group : groupList) {
+                layers.add(catalog.layer(group, id));
+            }
+            return new ResolvedPermissions(playerId, id, attributes, groups, PermissionMatcher.of(layers));
+        });
+    }
+
+    public UUID playerId() {
+        return playerId;
+    }
+
+    /**
+     * Resolved display attributes (merged from player + groups). Same in every world.
+     */
+    public PermissibleAttributes attributes() {
+        return attributes;
+    }
+
+    /**
+     * Canonical names of the player's groups, highest priority first.
+     */
+    public List<String> groups() {
+        return groups;
+    }
+
+    /**
+     * Returns the per-world projections made so far.
+     */
+    public Collection<ResolvedPermissions> projections() {
+        return projections.values();
+    }
+
+    /**
+     * Returns the number of worlds projected so far.
+     */
+    public int projectionCount() {
+        return projections.size();
+    }
+}
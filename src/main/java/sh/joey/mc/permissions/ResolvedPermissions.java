@@ -1,5 +1,6 @@
 package sh.joey.mc.permissions;
 
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -10,65 +11,48 @@ import java.util.UUID;
  * @param playerId   The player's UUID
  * @param worldId    The world these permissions apply to
  * @param attributes Resolved display attributes (merged from player + groups)
- * @param permissions Map of permission string to state (true = allow, false = deny)
+ * @param groups     Canonical names of the groups that contributed, highest priority first
+ * @param matcher    Compiled matcher: the player's layer stacked over shared group layers
  */
 public record ResolvedPermissions(
         UUID playerId,
         UUID worldId,
         PermissibleAttributes attributes,
-        Map<String, Boolean> permissions
+        List<String> groups,
+        PermissionMatcher matcher
 ) {
 
     /**
      * Check if a specific permission is granted.
-     * Uses wildcard matching against all resolved permissions.
+     * The most specific matching grant (exact, then deepest wildcard) decides.
      *
      * @param permission the permission to check (e.g., "worldedit.wand")
      * @return true if the permission is granted, false otherwise
      */
     public boolean hasPermission(String permission) {
-        // Check exact match first (most common case)
-        String lowerPerm = permission.toLowerCase();
-        Boolean exact = permissions.get(lowerPerm);
-        if (exact != null) {
-            return exact;
-        }
-
-        // Parse the target permission
-        ParsedPermission target = ParsedPermission.parse(permission).orElse(null);
-        if (target == null) {
-            return false;
-        }
-
-        // Find the most specific matching grant
-        int bestSpecificity = -1;
-        Boolean bestState = null;
-
-        for (var entry : permissions.entrySet()) {
-            ParsedPermission grant = ParsedPermission.parse(entry.getKey()).orElse(null);
-            if (grant != null && grant.matches(target)) {
-                int specificity = grant.specificity();
-                if (specificity > bestSpecificity) {
-                    bestSpecificity = specificity;
-                    bestState = entry.getValue();
-                }
-            }
-        }
+        return matcher.hasPermission(permission);
+    }
 
-        return bestState != null && bestState;
+    /**
+     * Returns the resolved grants as a map of permission string to state
+     * (true = allow, false = deny). Built from the shared layers on first use and
+     * kept by the matcher.
+     */
+    public Map<String, Boolean> permissions() {
+        return matcher.asMap();
     }
 
     /**
      * Returns the number of permissions in this resolved set.
      */
     public int permissionCount() {
-        return permissions.size();
+        return matcher.size();
     }
 
     /**
      * Returns true if the player has any permissions (including denies).
      */
     public boolean hasAnyPermissions() {
-        return !permissions.isEmpty();
+        return matcher.size() > 0;
     }
 }
@@ -9,7 +9,7 @@ import net.kyori.adventure.text.format.TextDecoration;
 import org.bukkit.command.CommandSender;
 import sh.joey.mc.SiqiJoeyPlugin;
 import sh.joey.mc.cmd.Command;
-import sh.joey.mc.permissions.DisplayManager;
+import sh.joey.mc.permissions.GroupCatalogCache;
 import sh.joey.mc.permissions.PermissionAttacher;
 import sh.joey.mc.permissions.PermissionCache;
 import sh.joey.mc.permissions.PermissionStorage;
@@ -32,6 +32,8 @@ public final class PermCommand implements Command {
             .append(Component.text("] ").color(NamedTextColor.DARK_GRAY));
 
     private final SiqiJoeyPlugin plugin;
+    private final PermissionCache cache;
+    private final PermissionAttacher attacher;
     private final GroupSubcommand groupHandler;
     private final PlayerSubcommand playerHandler;
     private final PermEffects effects;
@@ -41,12 +43,15 @@ public final class PermCommand implements Command {
             PermissionStorage storage,
             PlayerSessionStorage sessionStorage,
             PermissionCache cache,
+            GroupCatalogCache groupCatalog,
             PermissionAttacher attacher,
-            DisplayManager displayManager
+            PermEffects effects
     ) {
         this.plugin = plugin;
-        this.effects = new PermEffects(cache, attacher, displayManager);
-        this.groupHandler = new GroupSubcommand(plugin, storage, sessionStorage, effects);
+        this.cache = cache;
+        this.attacher = attacher;
+        this.effects = effects;
+        this.groupHandler = new GroupSubcommand(plugin, storage, groupCatalog, sessionStorage, effects);
         this.playerHandler = new PlayerSubcommand(plugin, storage, sessionStorage, effects);
     }
 
@@ -74,6 +79,7 @@ public final class PermCommand implements Command {
                 case "group" -> groupHandler.execute(sender, remaining);
                 case "player" -> playerHandler.execute(sender, remaining);
                 case "reload" -> handleReload(sender);
+                case "stats" -> showStats(sender);
                 case "help" -> showHelp(sender);
                 default -> showHelp(sender);
             };
@@ -86,7 +92,7 @@ public final class PermCommand implements Command {
             if (args.length <= 1) {
                 String partial = args.length == 1 ? args[0].toLowerCase() : "";
                 List<Completion> completions = new ArrayList<>();
-                for (String cmd : List.of("group", "player", "reload", "help")) {
+                for (String cmd : List.of("group", "player", "reload", "stats", "help")) {
                     if (cmd.startsWith(partial)) {
                         completions.add(Completion.completion(cmd));
                     }
@@ -113,6 +119,44 @@ public final class PermCommand implements Command {
                 .onErrorComplete();
     }
 
+    private Completable showStats(CommandSender sender) {
+        return Completable.fromAction(() -> {
+            PermissionCache.Stats lookups = cache.stats();
+            PermissionAttacher.Stats attach = attacher.stats();
+            sender.sendMessage(PREFIX.append(Component.text("Permission Stats:").color(NamedTextColor.WHITE)));
+            sender.sendMessage(formatStat("Cache hits", lookups.hits()));
+            sender.sendMessage(formatStat("Cache misses (resolved)", lookups.misses()));
+            sender.sendMessage(formatStat("Cache misses (coalesced)", lookups.coalesced()));
+            sender.sendMessage(formatStat("Attachment nodes touched", attach.nodesTouched()));
+            sender.sendMessage(formatStat("Attachment recalculations", attach.recalculations()));
+            sender.sendMessage(formatStat("Recalculations skipped (no change)", attach.recalculationsSkipped()));
+
+            PermissionCache.Footprint heap = cache.footprint();
+            sender.sendMessage(Component.empty());
+            sender.sendMessage(PREFIX.append(Component.text("Permission Memory (estimated):").color(NamedTextColor.WHITE)));
+            sender.sendMessage(formatStat("Cached players", heap.players()));
+            sender.sendMessage(formatStat("World projections", heap.projections()));
+            sender.sendMessage(formatStat("Distinct layers", heap.layers()));
+            sender.sendMessage(formatStat("Interned permission nodes", heap.nodes()));
+            sender.sendMessage(formatBytes("Layer bytes", heap.layerBytes()));
+            sender.sendMessage(formatBytes("Stack bytes", heap.stackBytes()));
+            sender.sendMessage(formatBytes("Flat-map equivalent", heap.flatBytes()));
+        });
+    }
+
+    private static Component formatStat(String name, long value) {
+        return Component.text("  " + name + ": ").color(NamedTextColor.GRAY)
+                .append(Component.text(value).color(NamedTextColor.WHITE));
+    }
+
+    private static Component formatBytes(String name, long bytes) {
+        String value = bytes >= 1024 * 1024
+                ? String.format("%.1f MiB", bytes / (1024.0 * 1024.0))
+                : String.format("%.1f KiB", bytes / 1024.0);
+        return Component.text("  " + name + ": ").color(NamedTextColor.GRAY)
+                .append(Component.text(value).color(NamedTextColor.WHITE));
+    }
+
     private Completable showHelp(CommandSender sender) {
         return Completable.fromAction(() -> {
             sender.sendMessage(PREFIX.append(Component.text("Permission Commands:").color(NamedTextColor.WHITE)));
@@ -136,6 +180,7 @@ public final class PermCommand implements Command {
             sender.sendMessage(Component.text("  /perm player <name> inspect").color(NamedTextColor.AQUA));
             sender.sendMessage(Component.empty());
             sender.sendMessage(Component.text("  /perm reload").color(NamedTextColor.AQUA));
+            sender.sendMessage(Component.text("  /perm stats").color(NamedTextColor.AQUA));
         });
     }
 
@@ -1,39 +1,96 @@
 package sh.joey.mc.permissions.cmd;
 
 import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.disposables.CompositeDisposable;
+import io.reactivex.rxjava3.disposables.Disposable;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import sh.joey.mc.permissions.DisplayManager;
+import sh.joey.mc.permissions.GroupCatalogCache;
 import sh.joey.mc.permissions.PermissionAttacher;
 import sh.joey.mc.permissions.PermissionCache;
+import sh.joey.mc.storage.InvalidationBus;
+import sh.joey.mc.storage.InvalidationBus.Channel;
 
 import java.util.UUID;
+import java.util.logging.Logger;
 
 /**
  * Handles cache invalidation and player refresh after permission changes.
- * Ensures changes take effect immediately.
+ * Ensures changes take effect immediately, here and (through the {@link InvalidationBus})
+ * on every other server sharing the database.
  */
-public final class PermEffects {
+public final class PermEffects implements Disposable {
 
+    private static final Channel<String> GROUP_CHANGED = Channel.ofString("smp_perm_group");
+    private static final Channel<UUID> PLAYER_CHANGED = Channel.ofUuid("smp_perm_player");
+    // Payload is the default group that changed, or empty for /perm reload
+    private static final Channel<String> RELOADED = Channel.ofString("smp_perm_reload");
+
+    private final CompositeDisposable disposables = new CompositeDisposable();
+    private final InvalidationBus bus;
     private final PermissionCache cache;
+    private final GroupCatalogCache groupCatalog;
     private final PermissionAttacher attacher;
     private final DisplayManager displayManager;
+    private final Logger logger;
 
-    public PermEffects(PermissionCache cache, PermissionAttacher attacher, DisplayManager displayManager) {
+    public PermEffects(
+            PermissionCache cache,
+            GroupCatalogCache groupCatalog,
+            PermissionAttacher attacher,
+            DisplayManager displayManager,
+            InvalidationBus bus,
+            Logger logger
+    ) {
+        this.bus = bus;
         this.cache = cache;
+        this.groupCatalog = groupCatalog;
         this.attacher = attacher;
         this.displayManager = displayManager;
+        this.logger = logger;
+
+        // Changes made on other servers; applied locally without re-publishing
+        disposables.add(bus.on(GROUP_CHANGED).subscribe(this::applyGroupChanged));
+        disposables.add(bus.on(PLAYER_CHANGED).subscribe(this::applyPlayerChanged));
+        disposables.add(bus.on(RELOADED).subscribe(group -> applyReload()));
+        disposables.add(bus.resyncs().subscribe(missed -> applyReload()));
     }
 
     /**
      * Call after any group permission/attribute change.
-     * Invalidates all caches and refreshes all online players.
+     * Invalidates and refreshes only the players whose cached permissions include the group.
      */
     public Completable onGroupChanged(String groupName) {
         return Completable.fromAction(() -> {
-            cache.invalidateGroup(groupName);
-            attacher.refreshAll();
-            displayManager.refreshAll();
+            applyGroupChanged(groupName);
+            bus.publish(GROUP_CHANGED, groupName);
+        });
+    }
+
+    private void applyGroupChanged(String groupName) {
+        groupCatalog.invalidate();
+        PermissionCache.Invalidation invalidation = cache.invalidateGroup(groupName);
+        int refreshed = attacher.refreshPlayers(invalidation.players());
+        for (UUID playerId : invalidation.players()) {
+            Player player = Bukkit.getPlayer(playerId);
+            if (player != null) {
+                displayManager.updateDisplay(player);
+            }
+        }
+        logger.info("Group '" + groupName + "' changed: invalidated " + invalidation.entries()
+                + " cache entries for " + invalidation.players().size() + " players, re-resolved "
+                + refreshed + " online");
+    }
+
+    /**
+     * Call after a group's default flag changes.
+     * Default groups apply to everyone, so this invalidates all caches and refreshes all online players.
+     */
+    public Completable onDefaultGroupChanged(String groupName) {
+        return Completable.fromAction(() -> {
+            applyReload();
+            bus.publish(RELOADED, groupName);
         });
     }
 
@@ -43,24 +100,45 @@ public final class PermEffects {
      */
     public Completable onPlayerChanged(UUID playerId) {
         return Completable.fromAction(() -> {
-            cache.invalidatePlayer(playerId);
-            Player player = Bukkit.getPlayer(playerId);
-            if (player != null) {
-                attacher.refresh(player);
-                displayManager.updateDisplay(player);
-            }
+            applyPlayerChanged(playerId);
+            bus.publish(PLAYER_CHANGED, playerId);
         });
     }
 
+    private void applyPlayerChanged(UUID playerId) {
+        cache.invalidatePlayer(playerId);
+        Player player = Bukkit.getPlayer(playerId);
+        if (player != null) {
+            attacher.refresh(player);
+            displayManager.updateDisplay(player);
+        }
+    }
+
     /**
      * Call after reload command.
      * Invalidates all caches and refreshes all online players.
      */
     public Completable onReload() {
         return Completable.fromAction(() -> {
-            cache.invalidateAll();
-            attacher.refreshAll();
-            displayManager.refreshAll();
+            applyReload();
+            bus.publish(RELOADED, "");
         });
     }
+
+    private void applyReload() {
+        groupCatalog.invalidate();
+        cache.invalidateAll();
+        attacher.refreshAll();
+        displayManager.refreshAll();
+    }
+
+    @Override
+    public void dispose() {
+        disposables.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposables.isDisposed();
+    }
 }
@@ -14,6 +14,8 @@ import sh.joey.mc.SiqiJoeyPlugin;
 import sh.joey.mc.pagination.ChatPaginator;
 import sh.joey.mc.pagination.PaginatedItem;
 import sh.joey.mc.permissions.Group;
+import sh.joey.mc.permissions.GroupCatalog;
+import sh.joey.mc.permissions.GroupCatalogCache;
 import sh.joey.mc.permissions.ParsedPermission;
 import sh.joey.mc.permissions.PermissibleAttributes;
 import sh.joey.mc.permissions.PermissionGrant;
@@ -39,17 +41,20 @@ public final class GroupSubcommand {
 
     private final SiqiJoeyPlugin plugin;
     private final PermissionStorage storage;
+    private final GroupCatalogCache groupCatalog;
     private final PlayerSessionStorage sessionStorage;
     private final PermEffects effects;
 
     public GroupSubcommand(
             SiqiJoeyPlugin plugin,
             PermissionStorage storage,
+            GroupCatalogCache groupCatalog,
             PlayerSessionStorage sessionStorage,
             PermEffects effects
     ) {
         this.plugin = plugin;
         this.storage = storage;
+        this.groupCatalog = groupCatalog;
         this.sessionStorage = sessionStorage;
         this.effects = effects;
     }
@@ -101,10 +106,11 @@ public final class GroupSubcommand {
             if (args.length == 1) {
                 // Complete group names + "list" command
                 String partial = args[0].toLowerCase();
-                return storage.getAllGroups()
-                        .map(Group::displayName)
-                        .filter(name -> name.toLowerCase().startsWith(partial))
-                        .toList()
+                return groupCatalog.get()
+                        .map(catalog -> catalog.all().stream()
+                                .map(Group::displayName)
+                                .filter(name -> name.toLowerCase().startsWith(partial))
+                                .toList())
                         .map(names -> {
                             List<Completion> completions = new ArrayList<>();
                             // Add "list" as a special command
@@ -209,7 +215,7 @@ public final class GroupSubcommand {
         }
 
         return storage.setGroupDefault(groupName, value)
-                .andThen(effects.onGroupChanged(Group.normalize(groupName)))
+                .andThen(effects.onDefaultGroupChanged(Group.normalize(groupName)))
                 .observeOn(plugin.mainScheduler())
                 .doOnComplete(() -> success(sender, "Set default=" + value + " for group '" + groupName + "'."))
                 .doOnError(err -> logAndError(sender, "Failed to set default", err))
@@ -333,8 +339,8 @@ public final class GroupSubcommand {
         }
 
         int finalPage = page;
-        return storage.getAllGroups()
-                .toSortedList((a, b) -> Integer.compare(b.priority(), a.priority()))
+        return groupCatalog.get()
+                .map(GroupCatalog::all)
                 .observeOn(plugin.mainScheduler())
                 .doOnSuccess(groups -> displayGroups(sender, groups, finalPage))
                 .doOnError(err -> logAndError(sender, "Failed to list groups", err))
@@ -198,4 +198,17 @@ public final class PlayerResolver {
             return getUsername(playerId);
         });
     }
+
+    /**
+     * Get display name for a player ID when their username is already known
+     * (nickname if set, otherwise the given username). Never hits the database.
+     *
+     * @param playerId the player's UUID
+     * @param username the player's username
+     * @return the display name
+     */
+    public String getDisplayName(UUID playerId, String username) {
+        String nickname = nicknameManager.getNickname(playerId);
+        return nickname != null ? nickname : username;
+    }
 }
@@ -3,7 +3,6 @@ package sh.joey.mc.session;
 import com.destroystokyo.paper.event.server.AsyncTabCompleteEvent.Completion;
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Maybe;
-import io.reactivex.rxjava3.core.Single;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.format.TextDecoration;
@@ -15,11 +14,13 @@ import sh.joey.mc.player.PlayerResolver;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
 /**
  * /ontime command - shows online time for self or another player.
+ * /ontime top [n] - shows the players with the most online time.
  */
 public final class OnTimeCommand implements Command {
 
@@ -28,6 +29,9 @@ public final class OnTimeCommand implements Command {
             .append(Component.text("⏱").color(NamedTextColor.GOLD))
             .append(Component.text("] ").color(NamedTextColor.DARK_GRAY));
 
+    private static final int DEFAULT_TOP = 10;
+    private static final int MAX_TOP = 50;
+
     private final SiqiJoeyPlugin plugin;
     private final PlayerSessionStorage storage;
     private final PlayerSessionTracker tracker;
@@ -56,10 +60,12 @@ public final class OnTimeCommand implements Command {
         return Completable.defer(() -> {
             if (args.length == 0) {
                 if (!(sender instanceof Player player)) {
-                    sender.sendMessage("Usage: /ontime <player>");
+                    sender.sendMessage("Usage: /ontime <player|top [n]>");
                     return Completable.complete();
                 }
                 return showOwnTime(player);
+            } else if (args[0].equalsIgnoreCase("top")) {
+                return showTop(sender, args);
             } else {
                 return showOtherTime(sender, args[0]);
             }
@@ -79,9 +85,15 @@ public final class OnTimeCommand implements Command {
             }
 
             return playerResolver.getCompletions(prefix, 10)
-                    .flatMapMaybe(list -> list.isEmpty()
-                            ? Maybe.empty()
-                            : Maybe.just(list.stream().map(Completion::completion).toList()));
+                    .map(names -> {
+                        List<Completion> completions = new ArrayList<>();
+                        if ("top".startsWith(prefix)) {
+                            completions.add(Completion.completion("top"));
+                        }
+                        names.stream().map(Completion::completion).forEach(completions::add);
+                        return completions;
+                    })
+                    .filter(list -> !list.isEmpty());
         });
     }
 
@@ -90,15 +102,9 @@ public final class OnTimeCommand implements Command {
         UUID serverSessionId = tracker.getServerSessionId();
         String displayName = playerResolver.getDisplayName(player);
 
-        Single<Long> sessionSeconds = storage.getCurrentSessionStart(playerId, serverSessionId)
-                .map(start -> Duration.between(start, Instant.now()).toSeconds())
-                .defaultIfEmpty(0L);
-
-        Single<Long> lifetimeSeconds = storage.getLifetimeOnlineTime(playerId)
-                .defaultIfEmpty(0L);
-
-        return Single.zip(sessionSeconds, lifetimeSeconds, (session, lifetime) ->
-                    new OnTimeResult(displayName, session, lifetime, true))
+        return storage.getOnlineTime(playerId, serverSessionId)
+                .map(time -> new OnTimeResult(displayName, sessionSeconds(time), time.onlineSeconds(), true))
+                .defaultIfEmpty(new OnTimeResult(displayName, 0, 0, true))
                 .observeOn(plugin.mainScheduler())
                 .doOnSuccess(result -> displayResult(player, result))
                 .doOnError(err -> {
@@ -121,15 +127,9 @@ public final class OnTimeCommand implements Command {
         UUID serverSessionId = tracker.getServerSessionId();
         String displayName = playerResolver.getDisplayName(target);
 
-        Single<Long> sessionSeconds = storage.getCurrentSessionStart(playerId, serverSessionId)
-                .map(start -> Duration.between(start, Instant.now()).toSeconds())
-                .defaultIfEmpty(0L);
-
-        Single<Long> lifetimeSeconds = storage.getLifetimeOnlineTime(playerId)
-                .defaultIfEmpty(0L);
-
-        return Single.zip(sessionSeconds, lifetimeSeconds, (session, lifetime) ->
-                    new OnTimeResult(displayName, session, lifetime, true))
+        return storage.getOnlineTime(playerId, serverSessionId)
+                .map(time -> new OnTimeResult(displayName, sessionSeconds(time), time.onlineSeconds(), true))
+                .defaultIfEmpty(new OnTimeResult(displayName, 0, 0, true))
                 .observeOn(plugin.mainScheduler())
                 .doOnSuccess(result -> displayResult(viewer, result))
                 .doOnError(err -> {
@@ -142,14 +142,10 @@ public final class OnTimeCommand implements Command {
 
     private Completable showOfflinePlayerTime(CommandSender viewer, String targetName) {
         return playerResolver.resolvePlayerId(targetName)
-                .flatMapSingle(playerId -> {
-                    Single<String> displayNameSingle = playerResolver.getDisplayName(playerId)
-                            .defaultIfEmpty(targetName);
-                    Single<Long> lifetimeSingle = storage.getLifetimeOnlineTime(playerId)
-                            .defaultIfEmpty(0L);
-                    return Single.zip(displayNameSingle, lifetimeSingle,
-                            (displayName, lifetime) -> new OnTimeResult(displayName, 0, lifetime, false));
-                })
+                .flatMapSingle(playerId -> storage.getOnlineTime(playerId, null)
+                        .map(time -> new OnTimeResult(
+                                playerResolver.getDisplayName(playerId, time.username()), 0, time.onlineSeconds(), false))
+                        .defaultIfEmpty(new OnTimeResult(targetName, 0, 0, false)))
                 .observeOn(plugin.mainScheduler())
                 .doOnSuccess(result -> displayResult(viewer, result))
                 .doOnComplete(() -> error(viewer, "Player '" + targetName + "' not found."))
@@ -161,6 +157,58 @@ public final class OnTimeCommand implements Command {
                 .ignoreElement();
     }
 
+    private Completable showTop(CommandSender viewer, String[] args) {
+        int limit = DEFAULT_TOP;
+        if (args.length > 1) {
+            try {
+                limit = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                limit = 0;
+            }
+            if (limit < 1 || limit > MAX_TOP) {
+                error(viewer, "Usage: /ontime top [1-" + MAX_TOP + "]");
+                return Completable.complete();
+            }
+        }
+
+        return storage.getTopOnlineTime(limit)
+                .toList()
+                .observeOn(plugin.mainScheduler())
+                .doOnSuccess(ranks -> displayTop(viewer, ranks))
+                .doOnError(err -> {
+                    plugin.getLogger().warning("Failed to get online time leaderboard: " + err.getMessage());
+                    error(viewer, "Failed to retrieve online time leaderboard.");
+                })
+                .onErrorComplete()
+                .ignoreElement();
+    }
+
+    private void displayTop(CommandSender viewer, List<PlayerSessionStorage.OnlineTimeRank> ranks) {
+        viewer.sendMessage(PREFIX.append(
+                Component.text("Most Online Time").color(NamedTextColor.WHITE).decorate(TextDecoration.BOLD)));
+
+        if (ranks.isEmpty()) {
+            viewer.sendMessage(PREFIX.append(Component.text("No online time recorded yet.").color(NamedTextColor.GRAY)));
+            return;
+        }
+
+        int position = 1;
+        for (PlayerSessionStorage.OnlineTimeRank rank : ranks) {
+            viewer.sendMessage(PREFIX.append(
+                    Component.text(position++ + ". ").color(NamedTextColor.GRAY)
+                            .append(Component.text(playerResolver.getDisplayName(rank.playerId(), rank.username()))
+                                    .color(NamedTextColor.WHITE))
+                            .append(Component.text(" - ").color(NamedTextColor.DARK_GRAY))
+                            .append(Component.text(formatDuration(rank.onlineSeconds())).color(NamedTextColor.GREEN))));
+        }
+    }
+
+    private static long sessionSeconds(PlayerSessionStorage.OnlineTime time) {
+        return time.sessionStart() != null
+                ? Duration.between(time.sessionStart(), Instant.now()).toSeconds()
+                : 0;
+    }
+
     private void displayResult(CommandSender viewer, OnTimeResult result) {
         viewer.sendMessage(PREFIX.append(
                 Component.text(result.playerName + "'s Online Time").color(NamedTextColor.WHITE).decorate(TextDecoration.BOLD)));
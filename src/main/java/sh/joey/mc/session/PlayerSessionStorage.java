@@ -1,17 +1,25 @@
 package sh.joey.mc.session;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.core.Single;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import sh.joey.mc.storage.Priority;
 import sh.joey.mc.storage.StorageService;
 
 import org.jetbrains.annotations.Nullable;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
@@ -23,19 +31,52 @@ import java.util.UUID;
  */
 public final class PlayerSessionStorage {
 
+    // Tab completions are superseded by the next keystroke; don't let a slow lookup hold a connection
+    private static final Duration COMPLETION_TIMEOUT = Duration.ofSeconds(2);
+
+    // Follows a "closed AS (UPDATE player_sessions ... RETURNING player_id, connected_at,
+    // disconnected_at)" CTE: adds the closed sessions to each player's rollup
+    private static final String ROLL_UP_CLOSED = """
+        rolled_up AS (
+            INSERT INTO player_online_totals (player_id, closed_seconds)
+            SELECT player_id, EXTRACT(EPOCH FROM SUM(disconnected_at - connected_at))::bigint
+            FROM closed
+            GROUP BY player_id
+            ON CONFLICT (player_id) DO UPDATE
+            SET closed_seconds = player_online_totals.closed_seconds + EXCLUDED.closed_seconds,
+                open_seconds = 0, updated_at = NOW()
+        )
+        SELECT COUNT(*) FROM closed
+        """;
+
+    // Time in a player's open sessions up to their last heartbeat; the open-session
+    // partial index keeps this to a seek. Expects the player's id as d.player_id.
+    private static final String OPEN_SECONDS = """
+        COALESCE((
+            SELECT EXTRACT(EPOCH FROM SUM(s.last_seen_at - s.connected_at))::bigint
+            FROM player_sessions s
+            WHERE s.player_id = d.player_id AND s.disconnected_at IS NULL
+        ), 0)""";
+
     private final StorageService storage;
+    private final StorageService login;
+    // Heartbeats and disconnects; nobody waits on them
+    private final StorageService background;
 
     public PlayerSessionStorage(StorageService storage) {
         this.storage = storage;
+        this.login = storage.withPriority(Priority.LOGIN_CRITICAL);
+        this.background = storage.withPriority(Priority.BACKGROUND);
     }
 
     /**
-     * Record a player joining the server.
+     * Record a player joining the server, and update their player_directory entry
+     * in the same transaction.
      * The session id is auto-generated by the database.
      */
     public Completable recordJoin(UUID playerId, String username, String remoteIp,
                                    boolean onlineMode, UUID serverSessionId) {
-        return storage.execute(conn -> {
+        return login.executeInTransaction(conn -> {
             String sql = """
                 INSERT INTO player_sessions (player_id, username, remote_ip, online_mode, server_session_id)
                 VALUES (?, ?, ?, ?, ?)
@@ -49,44 +90,93 @@ public final class PlayerSessionStorage {
                 stmt.setObject(5, serverSessionId);
                 stmt.executeUpdate();
             }
+            upsertDirectorySync(conn, playerId, username, onlineMode);
+            storage.markWritten(playerId);
         });
     }
 
+    private static void upsertDirectorySync(Connection conn, UUID playerId, String username,
+                                            boolean onlineMode) throws SQLException {
+        String sql = """
+            INSERT INTO player_directory (player_id, username, online_mode)
+            VALUES (?, ?, ?)
+            ON CONFLICT (player_id) DO UPDATE
+            SET username = EXCLUDED.username, online_mode = EXCLUDED.online_mode, last_seen = NOW()
+            """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setObject(1, playerId);
+            stmt.setString(2, username);
+            stmt.setBoolean(3, onlineMode);
+            stmt.executeUpdate();
+        }
+    }
+
     /**
-     * Update last_seen_at for all active sessions belonging to this server run.
+     * Update last_seen_at for all active sessions belonging to this server run, and
+     * refresh those players' open session time in the online time rollup.
      * Called periodically as a heartbeat.
+     *
+     * @param runStart lower bound on connected_at for this run's sessions, so only
+     *                 the partitions since the server started are scanned
      */
-    public Completable updateLastSeen(UUID serverSessionId) {
-        return storage.execute(conn -> {
+    public Completable updateLastSeen(UUID serverSessionId, Instant runStart) {
+        return background.execute(conn -> {
             String sql = """
-                UPDATE player_sessions
-                SET last_seen_at = NOW()
-                WHERE server_session_id = ? AND disconnected_at IS NULL
+                WITH touched AS (
+                    UPDATE player_sessions
+                    SET last_seen_at = NOW()
+                    WHERE server_session_id = ? AND connected_at >= ? AND disconnected_at IS NULL
+                    RETURNING player_id, last_seen_at - connected_at AS open_time
+                )
+                INSERT INTO player_online_totals (player_id, open_seconds)
+                SELECT player_id, EXTRACT(EPOCH FROM SUM(open_time))::bigint
+                FROM touched
+                GROUP BY player_id
+                ON CONFLICT (player_id) DO UPDATE
+                SET open_seconds = EXCLUDED.open_seconds, updated_at = NOW()
                 """;
 
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
                 stmt.setObject(1, serverSessionId);
+                stmt.setTimestamp(2, Timestamp.from(runStart));
                 stmt.executeUpdate();
             }
         });
     }
 
     /**
-     * Record a player disconnecting from the server.
+     * Record a player disconnecting from the server, adding the session to their
+     * online time rollup and updating their player_directory last_seen in the same
+     * transaction.
+     *
+     * @param runStart lower bound on connected_at for this run's sessions
      */
-    public Completable recordDisconnect(UUID playerId, UUID serverSessionId) {
-        return storage.execute(conn -> {
+    public Completable recordDisconnect(UUID playerId, UUID serverSessionId, Instant runStart) {
+        return background.executeInTransaction(conn -> {
             String sql = """
-                UPDATE player_sessions
-                SET disconnected_at = NOW(), last_seen_at = NOW()
-                WHERE player_id = ? AND server_session_id = ? AND disconnected_at IS NULL
-                """;
+                WITH closed AS (
+                    UPDATE player_sessions
+                    SET disconnected_at = NOW(), last_seen_at = NOW()
+                    WHERE player_id = ? AND server_session_id = ? AND connected_at >= ?
+                      AND disconnected_at IS NULL
+                    RETURNING player_id, connected_at, disconnected_at
+                ),
+                """ + ROLL_UP_CLOSED;
 
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
                 stmt.setObject(1, playerId);
                 stmt.setObject(2, serverSessionId);
+                stmt.setTimestamp(3, Timestamp.from(runStart));
+                stmt.execute();
+            }
+
+            String directorySql = "UPDATE player_directory SET last_seen = NOW() WHERE player_id = ?";
+            try (PreparedStatement stmt = conn.prepareStatement(directorySql)) {
+                stmt.setObject(1, playerId);
                 stmt.executeUpdate();
             }
+            storage.markWritten(playerId);
         });
     }
 
@@ -94,19 +184,24 @@ public final class PlayerSessionStorage {
      * Close all active sessions for this server run.
      * Called during graceful shutdown to avoid orphaned sessions.
      *
+     * @param runStart lower bound on connected_at for this run's sessions
      * @return a Single emitting the number of sessions closed
      */
-    public Single<Integer> closeAllSessions(UUID serverSessionId) {
+    public Single<Integer> closeAllSessions(UUID serverSessionId, Instant runStart) {
         return storage.query(conn -> {
             String sql = """
-                UPDATE player_sessions
-                SET disconnected_at = NOW(), last_seen_at = NOW()
-                WHERE server_session_id = ? AND disconnected_at IS NULL
-                """;
+                WITH closed AS (
+                    UPDATE player_sessions
+                    SET disconnected_at = NOW(), last_seen_at = NOW()
+                    WHERE server_session_id = ? AND connected_at >= ? AND disconnected_at IS NULL
+                    RETURNING player_id, connected_at, disconnected_at
+                ),
+                """ + ROLL_UP_CLOSED;
 
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
                 stmt.setObject(1, serverSessionId);
-                return stmt.executeUpdate();
+                stmt.setTimestamp(2, Timestamp.from(runStart));
+                return countClosed(stmt);
             }
         });
     }
@@ -114,37 +209,50 @@ public final class PlayerSessionStorage {
     /**
      * Fix orphaned sessions from previous server runs (e.g., after a crash).
      * Sets disconnected_at = last_seen_at for any sessions not belonging to the current server.
-     * Uses queryBlocking() so it's safe to call .blockingGet() from the main thread.
+     * Called once at startup, which blocks on the result before players can join.
      *
+     * @param since only sessions connected after this are checked, so older partitions are
+     *              skipped; earlier orphans were fixed when the server last started
      * @return a Single emitting the number of orphaned sessions that were fixed
      */
-    public Single<Integer> fixOrphanedSessions(UUID currentServerSessionId) {
+    public Single<Integer> fixOrphanedSessions(UUID currentServerSessionId, Instant since) {
         return storage.query(conn -> {
             String sql = """
-                UPDATE player_sessions
-                SET disconnected_at = last_seen_at
-                WHERE server_session_id != ? AND disconnected_at IS NULL
-                """;
+                WITH closed AS (
+                    UPDATE player_sessions
+                    SET disconnected_at = last_seen_at
+                    WHERE server_session_id != ? AND connected_at >= ? AND disconnected_at IS NULL
+                    RETURNING player_id, connected_at, disconnected_at
+                ),
+                """ + ROLL_UP_CLOSED;
 
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
                 stmt.setObject(1, currentServerSessionId);
-                return stmt.executeUpdate();
+                stmt.setTimestamp(2, Timestamp.from(since));
+                return countClosed(stmt);
             }
         });
     }
 
+    private static int countClosed(PreparedStatement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
     /**
-     * Find a player's UUID by their username (case-insensitive).
-     * Returns the player_id from their most recent session.
+     * Find a player's UUID by their current username (case-insensitive).
+     * If several players have held the name, returns the one seen most recently.
      * Does not check online players - use {@link #resolvePlayerId} for that.
      */
     public Maybe<UUID> findPlayerIdByName(String username) {
         return storage.queryMaybe(conn -> {
             String sql = """
                 SELECT player_id
-                FROM player_sessions
-                WHERE LOWER(username) = LOWER(?)
-                ORDER BY connected_at DESC
+                FROM player_directory
+                WHERE username_lower = LOWER(?)
+                ORDER BY last_seen DESC
                 LIMIT 1
                 """;
 
@@ -167,7 +275,7 @@ public final class PlayerSessionStorage {
      */
     public Single<Boolean> usernameExists(String username) {
         return storage.query(conn -> {
-            String sql = "SELECT EXISTS(SELECT 1 FROM player_names WHERE LOWER(username) = LOWER(?))";
+            String sql = "SELECT EXISTS(SELECT 1 FROM player_directory WHERE username_lower = LOWER(?))";
 
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
                 stmt.setString(1, username);
@@ -198,17 +306,14 @@ public final class PlayerSessionStorage {
     }
 
     /**
-     * Find a player's username by their UUID.
-     * Returns the username from their most recent session.
+     * Find a player's current username by their UUID.
      */
     public Maybe<String> findUsernameById(UUID playerId) {
         return storage.queryMaybe(conn -> {
             String sql = """
                 SELECT username
-                FROM player_sessions
+                FROM player_directory
                 WHERE player_id = ?
-                ORDER BY connected_at DESC
-                LIMIT 1
                 """;
 
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -226,14 +331,14 @@ public final class PlayerSessionStorage {
 
     /**
      * Find player usernames matching a prefix (case-insensitive).
-     * Returns up to {@code limit} unique usernames from the player_names view.
+     * Returns up to {@code limit} current usernames from player_directory.
      */
     public Flowable<String> findUsernamesByPrefix(String prefix, int limit) {
         return storage.queryFlowable(conn -> {
             String sql = """
                 SELECT username
-                FROM player_names
-                WHERE LOWER(username) LIKE LOWER(?) || '%'
+                FROM player_directory
+                WHERE username_lower LIKE LOWER(?) || '%'
                 ORDER BY username
                 LIMIT ?
                 """;
@@ -250,20 +355,21 @@ public final class PlayerSessionStorage {
                 }
             }
             return usernames;
-        });
+        }, COMPLETION_TIMEOUT);
     }
 
     /**
-     * Get total lifetime online time for a player from the player_online_time view.
-     * Returns the duration in seconds, or empty if the player has no sessions.
+     * Get total lifetime online time for a player: their closed-session rollup plus any
+     * session still open. Returns the duration in seconds, or empty if the player has no sessions.
      */
     public Maybe<Long> getLifetimeOnlineTime(UUID playerId) {
         return storage.queryMaybe(conn -> {
             String sql = """
-                SELECT EXTRACT(EPOCH FROM online_time)::bigint AS seconds
-                FROM player_online_time
-                WHERE player_id = ?
-                """;
+                SELECT COALESCE(t.closed_seconds, 0) + %s AS seconds
+                FROM player_directory d
+                LEFT JOIN player_online_totals t ON t.player_id = d.player_id
+                WHERE d.player_id = ?
+                """.formatted(OPEN_SECONDS);
 
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
                 stmt.setObject(1, playerId);
@@ -279,139 +385,224 @@ public final class PlayerSessionStorage {
     }
 
     /**
-     * Get the start time of a player's current session.
-     * Returns empty if the player has no active session for this server run.
+     * Get a player's username history with date ranges.
+     * Uses the player_name_history view. Ordered newest first. Reads from the replica if configured.
      */
-    public Maybe<Instant> getCurrentSessionStart(UUID playerId, UUID serverSessionId) {
-        return storage.queryMaybe(conn -> {
+    public Flowable<UsernameHistoryEntry> getUsernameHistory(UUID playerId) {
+        return storage.readQueryFlowable(playerId, conn -> {
             String sql = """
-                SELECT connected_at
-                FROM player_sessions
-                WHERE player_id = ? AND server_session_id = ? AND disconnected_at IS NULL
+                SELECT username, "from", "until"
+                FROM player_name_history
+                WHERE player_id = ?
+                ORDER BY "from" DESC
                 """;
 
+            List<UsernameHistoryEntry> entries = new ArrayList<>();
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
                 stmt.setObject(1, playerId);
-                stmt.setObject(2, serverSessionId);
 
                 try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        return rs.getTimestamp("connected_at").toInstant();
+                    while (rs.next()) {
+                        var from = rs.getTimestamp("from").toInstant();
+                        var untilTs = rs.getTimestamp("until");
+                        var until = untilTs != null ? untilTs.toInstant() : null;
+                        entries.add(new UsernameHistoryEntry(rs.getString("username"), from, until));
                     }
-                    return null;
                 }
             }
+            return entries;
         });
     }
 
     /**
-     * Get the IP address from a player's most recent session.
+     * Get everything /whois shows for a player in one statement: latest username and IP,
+     * first join, last seen, lifetime playtime and username history.
+     * Returns empty if the player isn't in player_directory. IP and username history come
+     * from player_sessions, so they are missing once those months are detached.
+     * Reads from the replica if configured.
      */
-    public Maybe<String> getLastIpAddress(UUID playerId) {
-        return storage.queryMaybe(conn -> {
+    public Maybe<PlayerProfile> getPlayerProfile(UUID playerId) {
+        return storage.readQueryMaybe(playerId, conn -> {
             String sql = """
-                SELECT remote_ip
-                FROM player_sessions
-                WHERE player_id = ?
-                ORDER BY connected_at DESC
-                LIMIT 1
-                """;
+                SELECT
+                    d.username,
+                    latest.remote_ip,
+                    d.last_seen,
+                    d.first_seen AS first_join,
+                    COALESCE(t.closed_seconds, 0) + %s AS online_seconds,
+                    (
+                        SELECT JSON_AGG(JSON_BUILD_OBJECT(
+                                   'username', h.username,
+                                   'from', (EXTRACT(EPOCH FROM h."from") * 1000)::bigint,
+                                   'until', (EXTRACT(EPOCH FROM h."until") * 1000)::bigint
+                               ) ORDER BY h."from" DESC)
+                        FROM player_name_history h
+                        WHERE h.player_id = ?
+                    ) AS history
+                FROM player_directory d
+                LEFT JOIN LATERAL (
+                    SELECT remote_ip
+                    FROM player_sessions
+                    WHERE player_id = d.player_id
+                    ORDER BY connected_at DESC
+                    LIMIT 1
+                ) latest ON TRUE
+                LEFT JOIN player_online_totals t ON t.player_id = d.player_id
+                WHERE d.player_id = ?
+                """.formatted(OPEN_SECONDS);
 
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
                 stmt.setObject(1, playerId);
+                stmt.setObject(2, playerId);
 
                 try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        return rs.getString("remote_ip");
+                    if (!rs.next()) {
+                        return null;
                     }
-                    return null;
+                    return new PlayerProfile(
+                            playerId,
+                            rs.getString("username"),
+                            rs.getString("remote_ip"),
+                            rs.getTimestamp("first_join").toInstant(),
+                            rs.getTimestamp("last_seen").toInstant(),
+                            rs.getLong("online_seconds"),
+                            parseHistory(rs.getString("history"))
+                    );
                 }
             }
         });
     }
 
+    private static List<UsernameHistoryEntry> parseHistory(@Nullable String json) {
+        if (json == null) {
+            return List.of();
+        }
+        List<UsernameHistoryEntry> entries = new ArrayList<>();
+        for (JsonElement element : JsonParser.parseString(json).getAsJsonArray()) {
+            JsonObject obj = element.getAsJsonObject();
+            JsonElement until = obj.get("until");
+            entries.add(new UsernameHistoryEntry(
+                    obj.get("username").getAsString(),
+                    Instant.ofEpochMilli(obj.get("from").getAsLong()),
+                    until == null || until.isJsonNull() ? null : Instant.ofEpochMilli(until.getAsLong())
+            ));
+        }
+        return entries;
+    }
+
     /**
-     * Get a player's username history with date ranges.
-     * Uses the player_name_history view. Ordered newest first.
+     * Get what /ontime shows for a player in one statement: lifetime online time, the
+     * start of their session in this server run (if any), and their latest username.
+     * Returns empty if the player has no sessions.
+     *
+     * @param serverSessionId the current server run, or null to skip the session lookup
      */
-    public Flowable<UsernameHistoryEntry> getUsernameHistory(UUID playerId) {
-        return storage.queryFlowable(conn -> {
+    public Maybe<OnlineTime> getOnlineTime(UUID playerId, @Nullable UUID serverSessionId) {
+        return storage.queryMaybe(conn -> {
             String sql = """
-                SELECT username, "from", "until"
-                FROM player_name_history
-                WHERE player_id = ?
-                ORDER BY "from" DESC
-                """;
+                SELECT
+                    d.username,
+                    COALESCE(t.closed_seconds, 0) + %s AS online_seconds,
+                    (
+                        SELECT MAX(s.connected_at)
+                        FROM player_sessions s
+                        WHERE s.player_id = d.player_id AND s.server_session_id = ? AND s.disconnected_at IS NULL
+                    ) AS session_start
+                FROM player_directory d
+                LEFT JOIN player_online_totals t ON t.player_id = d.player_id
+                WHERE d.player_id = ?
+                """.formatted(OPEN_SECONDS);
 
-            List<UsernameHistoryEntry> entries = new ArrayList<>();
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setObject(1, playerId);
+                stmt.setObject(1, serverSessionId);
+                stmt.setObject(2, playerId);
 
                 try (ResultSet rs = stmt.executeQuery()) {
-                    while (rs.next()) {
-                        var from = rs.getTimestamp("from").toInstant();
-                        var untilTs = rs.getTimestamp("until");
-                        var until = untilTs != null ? untilTs.toInstant() : null;
-                        entries.add(new UsernameHistoryEntry(rs.getString("username"), from, until));
+                    if (!rs.next()) {
+                        return null;
                     }
+                    var sessionStart = rs.getTimestamp("session_start");
+                    return new OnlineTime(
+                            rs.getString("username"),
+                            rs.getLong("online_seconds"),
+                            sessionStart != null ? sessionStart.toInstant() : null
+                    );
                 }
             }
-            return entries;
         });
     }
 
     /**
-     * Get the date when a player first joined the server.
+     * Get the players with the most online time, most first, for /ontime top.
+     * Served by the rollup's total_seconds index, so open sessions count as of their
+     * last heartbeat.
      */
-    public Maybe<Instant> getFirstJoinDate(UUID playerId) {
-        return storage.queryMaybe(conn -> {
+    public Flowable<OnlineTimeRank> getTopOnlineTime(int limit) {
+        return storage.queryFlowable(conn -> {
             String sql = """
-                SELECT MIN(connected_at) AS first_join
-                FROM player_sessions
-                WHERE player_id = ?
+                SELECT t.player_id, d.username, t.total_seconds
+                FROM player_online_totals t
+                JOIN player_directory d ON d.player_id = t.player_id
+                ORDER BY t.total_seconds DESC
+                LIMIT ?
                 """;
 
+            List<OnlineTimeRank> ranks = new ArrayList<>();
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setObject(1, playerId);
+                stmt.setInt(1, limit);
 
                 try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        var ts = rs.getTimestamp("first_join");
-                        return ts != null ? ts.toInstant() : null;
+                    while (rs.next()) {
+                        ranks.add(new OnlineTimeRank(
+                                rs.getObject("player_id", UUID.class),
+                                rs.getString("username"),
+                                rs.getLong("total_seconds")
+                        ));
                     }
-                    return null;
                 }
             }
+            return ranks;
         });
     }
 
     /**
-     * Get the last time a player was seen on the server.
-     * Returns the most recent last_seen_at or disconnected_at timestamp.
+     * A player's session details for /whois.
+     *
+     * @param playerId        the player's UUID
+     * @param username        current username from player_directory
+     * @param lastIp          IP address from their most recent session, or null if none is kept
+     * @param firstJoin       when they first joined
+     * @param lastSeen        when they last joined or disconnected
+     * @param onlineSeconds   lifetime online time in seconds
+     * @param usernameHistory usernames used with date ranges, newest first
      */
-    public Maybe<Instant> getLastSeenDate(UUID playerId) {
-        return storage.queryMaybe(conn -> {
-            String sql = """
-                SELECT COALESCE(disconnected_at, last_seen_at) AS last_seen
-                FROM player_sessions
-                WHERE player_id = ?
-                ORDER BY connected_at DESC
-                LIMIT 1
-                """;
+    public record PlayerProfile(
+            UUID playerId,
+            String username,
+            @Nullable String lastIp,
+            Instant firstJoin,
+            Instant lastSeen,
+            long onlineSeconds,
+            List<UsernameHistoryEntry> usernameHistory
+    ) {}
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setObject(1, playerId);
+    /**
+     * A player's online time for /ontime.
+     *
+     * @param username      username from their most recent session
+     * @param onlineSeconds lifetime online time in seconds
+     * @param sessionStart  start of their session in the current server run, or null if offline
+     */
+    public record OnlineTime(String username, long onlineSeconds, @Nullable Instant sessionStart) {}
 
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        var ts = rs.getTimestamp("last_seen");
-                        return ts != null ? ts.toInstant() : null;
-                    }
-                    return null;
-                }
-            }
-        });
-    }
+    /**
+     * An entry in the /ontime top leaderboard.
+     *
+     * @param playerId      the player's UUID
+     * @param username      the player's current username
+     * @param onlineSeconds lifetime online time in seconds, as of the last heartbeat
+     */
+    public record OnlineTimeRank(UUID playerId, String username, long onlineSeconds) {}
 
     /**
      * Entry in a player's username history.
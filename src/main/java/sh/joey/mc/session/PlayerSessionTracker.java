@@ -9,6 +9,8 @@ import org.bukkit.event.player.PlayerQuitEvent;
 import sh.joey.mc.SiqiJoeyPlugin;
 
 import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
@@ -18,7 +20,18 @@ import java.util.concurrent.TimeUnit;
  */
 public final class PlayerSessionTracker implements Disposable {
 
+    // Sessions stay open across at most one server run: earlier orphans were closed when
+    // the server last started. Bounds the orphan check to the recent partitions, so a
+    // session that was already open this long when the server went down is never closed
+    // and has to be fixed by hand (see README).
+    private static final Duration ORPHAN_LOOKBACK = Duration.ofDays(62);
+    // connected_at comes from the database clock; allow for it running behind ours
+    private static final Duration CLOCK_SKEW = Duration.ofHours(1);
+
     private final UUID serverSessionId = UUID.randomUUID();
+    // Lower bound on connected_at for this run's sessions, so their updates only touch
+    // partitions since startup
+    private final Instant runStart = Instant.now().minus(CLOCK_SKEW);
     private final CompositeDisposable disposables = new CompositeDisposable();
     private final SiqiJoeyPlugin plugin;
     private final PlayerSessionStorage storage;
@@ -28,7 +41,7 @@ public final class PlayerSessionTracker implements Disposable {
         this.storage = storage;
         plugin.getLogger().info("server session id is " + serverSessionId);
         // Fix orphaned sessions from previous server runs (blocking on startup)
-        int fixed = storage.fixOrphanedSessions(serverSessionId).blockingGet();
+        int fixed = storage.fixOrphanedSessions(serverSessionId, Instant.now().minus(ORPHAN_LOOKBACK)).blockingGet();
         if (fixed > 0) {
             plugin.getLogger().info("Fixed " + fixed + " orphaned player session(s) from previous server run");
         }
@@ -53,7 +66,7 @@ public final class PlayerSessionTracker implements Disposable {
         disposables.add(plugin.watchEvent(PlayerQuitEvent.class)
             .flatMapCompletable(event -> {
                 Player player = event.getPlayer();
-                return storage.recordDisconnect(player.getUniqueId(), serverSessionId)
+                return storage.recordDisconnect(player.getUniqueId(), serverSessionId, runStart)
                     .doOnError(err -> plugin.getLogger().warning(
                         "Failed to record disconnect for " + player.getName() + ": " + err.getMessage()))
                     .onErrorComplete();
@@ -63,7 +76,7 @@ public final class PlayerSessionTracker implements Disposable {
         // Periodic heartbeat (every 30 seconds)
         disposables.add(plugin.interval(30, TimeUnit.SECONDS)
             .filter(ignored -> !Bukkit.getOnlinePlayers().isEmpty())
-            .flatMapCompletable(tick -> storage.updateLastSeen(serverSessionId)
+            .flatMapCompletable(tick -> storage.updateLastSeen(serverSessionId, runStart)
                 .doOnError(err -> plugin.getLogger().warning("Failed to update last seen: " + err.getMessage()))
                 .onErrorComplete())
             .subscribe());
@@ -88,7 +101,7 @@ public final class PlayerSessionTracker implements Disposable {
 
         // Gracefully close all active sessions on shutdown
         try {
-            int closed = storage.closeAllSessions(serverSessionId).blockingGet();
+            int closed = storage.closeAllSessions(serverSessionId, runStart).blockingGet();
             if (closed > 0) {
                 plugin.getLogger().info("Closed " + closed + " player session(s) on shutdown");
             }
@@ -3,13 +3,11 @@ package sh.joey.mc.session;
 import com.destroystokyo.paper.event.server.AsyncTabCompleteEvent.Completion;
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Maybe;
-import io.reactivex.rxjava3.core.Single;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.format.TextDecoration;
 import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
-import org.bukkit.entity.Player;
 import sh.joey.mc.SiqiJoeyPlugin;
 import sh.joey.mc.cmd.Command;
 import sh.joey.mc.nickname.NicknameManager;
@@ -98,43 +96,21 @@ public final class WhoisCommand implements Command {
     }
 
     private Maybe<WhoisInfo> buildWhoisInfo(UUID playerId, boolean includeAdmin) {
-        // Get username from storage
-        Maybe<String> usernameMaybe = storage.findUsernameById(playerId);
-
-        return usernameMaybe.flatMap(username -> {
-            Player onlinePlayer = Bukkit.getPlayer(playerId);
-            boolean isOnline = onlinePlayer != null;
-            String nickname = nicknameManager.getNickname(playerId);
-
-            if (!includeAdmin) {
-                // Basic info only
-                return Maybe.just(new WhoisInfo(
-                        playerId, username, nickname, isOnline,
-                        null, null, null, null, null));
-            }
-
-            // Admin info - combine multiple async queries
-            Single<String> ipSingle = storage.getLastIpAddress(playerId)
-                    .defaultIfEmpty("Unknown");
-
-            Single<Instant> firstJoinSingle = storage.getFirstJoinDate(playerId)
-                    .defaultIfEmpty(Instant.EPOCH);
-
-            Single<Instant> lastSeenSingle = storage.getLastSeenDate(playerId)
-                    .defaultIfEmpty(Instant.EPOCH);
-
-            Single<Long> playtimeSingle = storage.getLifetimeOnlineTime(playerId)
-                    .defaultIfEmpty(0L);
-
-            Single<List<PlayerSessionStorage.UsernameHistoryEntry>> historySingle =
-                    storage.getUsernameHistory(playerId).toList();
+        if (!includeAdmin) {
+            // Basic info only
+            return storage.findUsernameById(playerId)
+                    .map(username -> new WhoisInfo(
+                            playerId, username, nicknameManager.getNickname(playerId), Bukkit.getPlayer(playerId) != null,
+                            null, null, null, null, null));
+        }
 
-            return Single.zip(ipSingle, firstJoinSingle, lastSeenSingle, playtimeSingle, historySingle,
-                    (ip, firstJoin, lastSeen, playtime, history) -> new WhoisInfo(
-                            playerId, username, nickname, isOnline,
-                            ip, firstJoin, lastSeen, playtime, history))
-                    .toMaybe();
-        });
+        // Admin info - one aggregate query for the whole profile
+        return storage.getPlayerProfile(playerId)
+                .map(profile -> new WhoisInfo(
+                        playerId, profile.username(), nicknameManager.getNickname(playerId),
+                        Bukkit.getPlayer(playerId) != null,
+                        profile.lastIp(), profile.firstJoin(), profile.lastSeen(),
+                        profile.onlineSeconds(), profile.usernameHistory()));
     }
 
     private void displayWhoisInfo(CommandSender sender, WhoisInfo info) {
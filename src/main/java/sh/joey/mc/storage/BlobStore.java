@@ -0,0 +1,177 @@
+package sh.joey.mc.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Content-addressed, deflate-compressed blobs in the {@code blobs} table.
+ * <p>
+ * A blob's key is the SHA-256 of its uncompressed content. Storing content the table
+ * already has only costs the hash lookup, so callers can reference the same payload
+ * from many rows. Blobs are immutable; referencing columns carry a foreign key to
+ * {@code blobs}, and the owning storage class sweeps blobs nothing references any more.
+ * Readers join {@code blobs} on the hash and decode {@code data} with {@link #unpack}.
+ */
+public final class BlobStore {
+
+    private final AtomicLong references = new AtomicLong();
+    private final AtomicLong uploaded = new AtomicLong();
+    private final AtomicLong rawBytes = new AtomicLong();
+    private final AtomicLong storedBytes = new AtomicLong();
+
+    /**
+     * Blob traffic since startup.
+     *
+     * @param references  blobs callers stored, including ones the table already had
+     * @param uploaded    blobs actually written
+     * @param rawBytes    uncompressed size of every blob callers stored
+     * @param storedBytes bytes actually written
+     */
+    public record Stats(long references, long uploaded, long rawBytes, long storedBytes) {
+        /**
+         * References per blob written; 1.0 means no deduplication.
+         */
+        public double dedupRatio() {
+            return uploaded == 0 ? 0 : (double) references / uploaded;
+        }
+
+        public long bytesSaved() {
+            return rawBytes - storedBytes;
+        }
+    }
+
+    /**
+     * Stores each payload unless a blob with the same content exists, on an existing
+     * connection (for use inside a unit of work). Only missing payloads are compressed
+     * and sent. Blobs that already exist are key-share locked until the transaction
+     * ends, so a sweep can't delete one before the caller's row references it.
+     *
+     * @return the hash of each payload, in order
+     */
+    public List<byte[]> putAllSync(Connection conn, List<byte[]> contents) throws SQLException {
+        List<byte[]> hashes = new ArrayList<>(contents.size());
+        Map<String, byte[]> distinct = new LinkedHashMap<>();
+        long raw = 0;
+        for (byte[] content : contents) {
+            byte[] hash = hash(content);
+            hashes.add(hash);
+            distinct.putIfAbsent(HexFormat.of().formatHex(hash), content);
+            raw += content.length;
+        }
+
+        Set<String> existing = existingSync(conn, distinct.keySet());
+        long stored = 0;
+        int written = 0;
+        String sql = """
+            INSERT INTO blobs (hash, compressed, raw_size, data)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (hash) DO NOTHING
+            """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (Map.Entry<String, byte[]> entry : distinct.entrySet()) {
+                if (existing.contains(entry.getKey())) {
+                    continue;
+                }
+                byte[] content = entry.getValue();
+                byte[] deflated = deflate(content);
+                boolean compressed = deflated.length < content.length;
+                byte[] data = compressed ? deflated : content;
+
+                stmt.setBytes(1, HexFormat.of().parseHex(entry.getKey()));
+                stmt.setBoolean(2, compressed);
+                stmt.setInt(3, content.length);
+                stmt.setBytes(4, data);
+                stmt.addBatch();
+                stored += data.length;
+                written++;
+            }
+            if (written > 0) {
+                stmt.executeBatch();
+            }
+        }
+
+        references.addAndGet(contents.size());
+        uploaded.addAndGet(written);
+        rawBytes.addAndGet(raw);
+        storedBytes.addAndGet(stored);
+        return hashes;
+    }
+
+    private static Set<String> existingSync(Connection conn, Set<String> hexHashes) throws SQLException {
+        byte[][] hashes = hexHashes.stream().map(HexFormat.of()::parseHex).toArray(byte[][]::new);
+        Set<String> existing = new HashSet<>();
+        Array array = conn.createArrayOf("bytea", hashes);
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT hash FROM blobs WHERE hash = ANY(?) FOR KEY SHARE")) {
+            stmt.setArray(1, array);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    existing.add(HexFormat.of().formatHex(rs.getBytes("hash")));
+                }
+            }
+        } finally {
+            array.free();
+        }
+        return existing;
+    }
+
+    /**
+     * Decodes a blob's {@code data} column given its {@code compressed} column.
+     * Uncompressed data is returned as-is.
+     */
+    public static byte[] unpack(byte[] data, boolean compressed) throws SQLException {
+        if (!compressed) {
+            return data;
+        }
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(data))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new SQLException("Corrupt blob", e);
+        }
+    }
+
+    /**
+     * Returns blob traffic since startup.
+     */
+    public Stats stats() {
+        return new Stats(references.get(), uploaded.get(), rawBytes.get(), storedBytes.get());
+    }
+
+    private static byte[] hash(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] deflate(byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2 + 16);
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(out)) {
+            deflater.write(content);
+        } catch (IOException e) {
+            // In-memory streams don't throw
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+}
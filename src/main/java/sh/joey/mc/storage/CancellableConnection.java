@@ -0,0 +1,142 @@
+package sh.joey.mc.storage;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Connection wrapper for a single {@link StorageService} operation.
+ * <p>
+ * Tracks every statement the operation opens so another thread can cancel whatever is
+ * running when the subscriber goes away, and applies the operation's query timeout to
+ * each statement. Once cancelled, opening further statements fails immediately.
+ */
+final class CancellableConnection extends DelegatingConnection {
+
+    /**
+     * SQLState Postgres reports for a statement stopped by a cancel request or timeout.
+     */
+    static final String QUERY_CANCELED = "57014";
+
+    private final int queryTimeoutSeconds;
+    private final List<Statement> statements = new ArrayList<>();
+    private boolean cancelled;
+    private boolean finished;
+
+    /**
+     * @param queryTimeoutSeconds per-statement timeout, or 0 for none
+     */
+    CancellableConnection(Connection delegate, int queryTimeoutSeconds) {
+        super(delegate);
+        this.queryTimeoutSeconds = queryTimeoutSeconds;
+    }
+
+    private synchronized <S extends Statement> S track(S statement) throws SQLException {
+        if (cancelled) {
+            statement.close();
+            throw new SQLException("Operation was cancelled", QUERY_CANCELED);
+        }
+        if (queryTimeoutSeconds > 0) {
+            statement.setQueryTimeout(queryTimeoutSeconds);
+        }
+        statements.add(statement);
+        return statement;
+    }
+
+    /**
+     * Cancel the operation's open statements. Safe to call from any thread; does nothing
+     * once the operation has finished. Blocks while the driver sends the cancel request,
+     * so don't call it from the main thread.
+     */
+    synchronized void cancel() {
+        if (finished || cancelled) {
+            return;
+        }
+        cancelled = true;
+        for (Statement statement : statements) {
+            try {
+                // pgjdbc only sends a cancel request while the statement is executing
+                statement.cancel();
+            } catch (SQLException ignored) {
+                // Already closed or finished
+            }
+        }
+    }
+
+    synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Mark the operation done so a late {@link #cancel()} can't hit a statement
+     * run by the connection's next borrower.
+     */
+    synchronized void finish() {
+        finished = true;
+        statements.clear();
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        return track(delegate.createStatement());
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        return track(delegate.createStatement(resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        return track(delegate.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return track(delegate.prepareStatement(sql));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        return track(delegate.prepareStatement(sql, resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        return track(delegate.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        return track(delegate.prepareStatement(sql, autoGeneratedKeys));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        return track(delegate.prepareStatement(sql, columnIndexes));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        return track(delegate.prepareStatement(sql, columnNames));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        return track(delegate.prepareCall(sql));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        return track(delegate.prepareCall(sql, resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        return track(delegate.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+}
@@ -13,7 +13,17 @@ public record DatabaseConfig(
         String username,
         String password,
         int poolSize,
-        boolean logQueries
+        boolean logQueries,
+        long slowQueryMillis,
+        int executorQueueSize,
+        boolean virtualThreads,
+        int prepareThreshold,
+        int statementCacheQueries,
+        int statementCacheSizeMiB,
+        String replicaHost,
+        int replicaPort,
+        int replicaPoolSize,
+        long replicaStickyMillis
 ) {
     public static DatabaseConfig load(JavaPlugin plugin) {
         plugin.saveDefaultConfig();
@@ -26,7 +36,17 @@ public record DatabaseConfig(
                 config.getString("database.username", "minecraft"),
                 config.getString("database.password", ""),
                 config.getInt("database.pool-size", 3),
-                config.getBoolean("database.log-queries", false)
+                config.getBoolean("database.log-queries", false),
+                config.getLong("database.slow-query-ms", 250),
+                config.getInt("database.executor.queue-size", 256),
+                config.getBoolean("database.executor.virtual-threads", false),
+                config.getInt("database.statements.prepare-threshold", 1),
+                config.getInt("database.statements.cache-queries", 256),
+                config.getInt("database.statements.cache-size-mib", 5),
+                config.getString("database.replica.host", ""),
+                config.getInt("database.replica.port", 5432),
+                config.getInt("database.replica.pool-size", 2),
+                config.getLong("database.replica.sticky-ms", 5000)
         );
     }
 
@@ -36,4 +56,18 @@ public record DatabaseConfig(
     public String jdbcUrl() {
         return "jdbc:postgresql://" + host + ":" + port + "/" + database;
     }
+
+    /**
+     * Returns true if a read replica is configured.
+     */
+    public boolean hasReplica() {
+        return replicaHost != null && !replicaHost.isBlank();
+    }
+
+    /**
+     * Returns the JDBC URL for the read replica. It shares the primary's database and credentials.
+     */
+    public String replicaJdbcUrl() {
+        return "jdbc:postgresql://" + replicaHost + ":" + replicaPort + "/" + database;
+    }
 }
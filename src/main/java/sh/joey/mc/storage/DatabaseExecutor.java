@@ -0,0 +1,577 @@
+package sh.joey.mc.storage;
+
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Runs blocking JDBC work for {@link StorageService}.
+ * <p>
+ * One worker per pooled connection, so workers never queue inside {@code getConnection()},
+ * in front of a bounded queue. When the queue is full, new work fails fast with a
+ * {@link RejectedExecutionException} instead of piling up threads. Disposing a
+ * subscription before its work starts removes it from the queue.
+ * <p>
+ * Work is queued by {@link Priority}. Idle workers take interactive work first. Interactive
+ * and background work together never occupy the last worker, which stays free for
+ * login-critical work (with a pool of one there's nothing to reserve). Background work
+ * that has waited longer than {@value #BACKGROUND_AGING_MILLIS}ms goes ahead of
+ * interactive work, so a busy server can't starve it.
+ * <p>
+ * A streaming cursor keeps its connection between fetches, so each open stream takes
+ * a connection slot away from queued work until it closes, and at most all but two slots
+ * (one with a pool of one or two) can be held by streams. Its fetches are continuations:
+ * they run at the stream's priority, need no connection of their own and skip the queue
+ * limit.
+ * <p>
+ * In virtual-thread mode workers are virtual threads, so a worker blocked in JDBC
+ * doesn't hold a platform thread (while the driver isn't inside a {@code synchronized}
+ * block, which still pins on Java 21).
+ */
+public final class DatabaseExecutor implements Disposable {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+    private static final long BACKGROUND_AGING_MILLIS = 2_000;
+    private static final long BACKGROUND_AGING_NANOS = TimeUnit.MILLISECONDS.toNanos(BACKGROUND_AGING_MILLIS);
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    /**
+     * Queue metrics for one priority class.
+     *
+     * @param priority       The class
+     * @param queued         Tasks of this class waiting for a worker
+     * @param completed      Tasks of this class run to completion
+     * @param totalWaitNanos Total time this class spent queued
+     * @param maxWaitNanos   Longest time a task of this class spent queued
+     */
+    public record PriorityStats(Priority priority, int queued, long completed, long totalWaitNanos, long maxWaitNanos) {
+        public double avgWaitMillis() {
+            return completed == 0 ? 0 : totalWaitNanos / 1_000_000.0 / completed;
+        }
+    }
+
+    /**
+     * Point-in-time executor metrics.
+     *
+     * @param workers        Worker count (equal to the connection pool size)
+     * @param active         Workers currently running a task
+     * @param queued         Tasks waiting for a worker
+     * @param queueCapacity  Maximum queued tasks before rejection
+     * @param completed      Tasks run to completion (including failures)
+     * @param rejected       Tasks rejected because the queue was full
+     * @param cancelled      Tasks dropped because their subscriber went away while queued
+     * @param totalWaitNanos Total time tasks spent queued
+     * @param maxWaitNanos   Longest time a task spent queued
+     * @param totalRunNanos  Total time tasks spent running
+     * @param maxRunNanos    Longest time a task spent running
+     * @param priorities     Queue metrics per priority class
+     */
+    public record Stats(
+            int workers,
+            int active,
+            int queued,
+            int queueCapacity,
+            long completed,
+            long rejected,
+            long cancelled,
+            long totalWaitNanos,
+            long maxWaitNanos,
+            long totalRunNanos,
+            long maxRunNanos,
+            List<PriorityStats> priorities
+    ) {
+        public double avgWaitMillis() {
+            return completed == 0 ? 0 : totalWaitNanos / 1_000_000.0 / completed;
+        }
+
+        public double avgRunMillis() {
+            return completed == 0 ? 0 : totalRunNanos / 1_000_000.0 / completed;
+        }
+    }
+
+    private static final class Task {
+        final Priority priority;
+        final Runnable work;
+        final long enqueuedAt = System.nanoTime();
+        // Stream continuations are already-admitted work on a held connection:
+        // no queue limit, no connection slot, no metrics
+        final boolean tracked;
+
+        Task(Priority priority, Runnable work, boolean tracked) {
+            this.priority = priority;
+            this.work = work;
+            this.tracked = tracked;
+        }
+    }
+
+    private final Logger logger;
+    private final int workers;
+    private final int reserved;
+    private final int queueCapacity;
+    private final int maxStreams;
+    private final Scheduler[] schedulers;
+    private final CountDownLatch terminated;
+    private final List<Thread> threads = new ArrayList<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    // Guarded by lock
+    private final ArrayDeque<Task>[] queues;
+    private final ArrayDeque<Task>[] continuations;
+    private final int[] running = new int[PRIORITIES.length];
+    private int queuedTracked;
+    // Connections in use: tracked tasks running plus streams holding a cursor open
+    private int runningTracked;
+    private int openStreams;
+    private volatile boolean shutdown;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder totalRunNanos = new LongAdder();
+    private final LongAccumulator maxRunNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder[] completedByPriority = new LongAdder[PRIORITIES.length];
+    private final LongAdder[] waitNanosByPriority = new LongAdder[PRIORITIES.length];
+    private final LongAccumulator[] maxWaitNanosByPriority = new LongAccumulator[PRIORITIES.length];
+
+    public DatabaseExecutor(DatabaseConfig config, Logger logger) {
+        this("Database executor", "SiqiJoey-DB-", config.poolSize(), config, logger);
+    }
+
+    /**
+     * Creates the executor for reads on the replica pool, with one worker per replica connection.
+     */
+    public static DatabaseExecutor forReplica(DatabaseConfig config, Logger logger) {
+        return new DatabaseExecutor("Replica executor", "SiqiJoey-DB-Replica-", config.replicaPoolSize(), config, logger);
+    }
+
+    @SuppressWarnings("unchecked")
+    private DatabaseExecutor(String label, String threadPrefix, int workers, DatabaseConfig config, Logger logger) {
+        this.logger = logger;
+        this.workers = workers;
+        this.reserved = workers > 1 ? 1 : 0;
+        this.queueCapacity = config.executorQueueSize();
+        this.maxStreams = Math.max(1, workers - reserved - 1);
+
+        this.queues = new ArrayDeque[PRIORITIES.length];
+        this.continuations = new ArrayDeque[PRIORITIES.length];
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            queues[i] = new ArrayDeque<>();
+            continuations[i] = new ArrayDeque<>();
+            completedByPriority[i] = new LongAdder();
+            waitNanosByPriority[i] = new LongAdder();
+            maxWaitNanosByPriority[i] = new LongAccumulator(Math::max, 0);
+        }
+
+        ThreadFactory factory = config.virtualThreads()
+                ? Thread.ofVirtual().name(threadPrefix, 0).factory()
+                : platformThreads(threadPrefix);
+        this.terminated = new CountDownLatch(workers);
+        for (int i = 0; i < workers; i++) {
+            Thread thread = factory.newThread(this::runWorker);
+            threads.add(thread);
+            thread.start();
+        }
+        this.schedulers = new Scheduler[PRIORITIES.length];
+        for (Priority priority : PRIORITIES) {
+            schedulers[priority.ordinal()] = Schedulers.from(work -> executeContinuation(priority, work), false, true);
+        }
+
+        logger.info(label + " started: " + workers + " "
+                + (config.virtualThreads() ? "virtual" : "platform") + " workers, queue " + queueCapacity);
+    }
+
+    private static ThreadFactory platformThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Run blocking work on a database worker.
+     * Errors with {@link RejectedExecutionException} if the queue is full.
+     */
+    public <T> Single<T> single(Priority priority, Callable<T> work) {
+        return Single.create(emitter -> {
+            Task task = submit(priority, () -> {
+                if (emitter.isDisposed()) {
+                    cancelled.increment();
+                    return;
+                }
+                try {
+                    emitter.onSuccess(work.call());
+                } catch (Throwable e) {
+                    emitter.tryOnError(e);
+                }
+            }, emitter::tryOnError);
+            if (task != null) {
+                emitter.setCancellable(() -> dequeue(task));
+            }
+        });
+    }
+
+    /**
+     * Run blocking work on a database worker, completing empty if it returns null.
+     * Errors with {@link RejectedExecutionException} if the queue is full.
+     */
+    public <T> Maybe<T> maybe(Priority priority, Callable<T> work) {
+        return Maybe.create(emitter -> {
+            Task task = submit(priority, () -> {
+                if (emitter.isDisposed()) {
+                    cancelled.increment();
+                    return;
+                }
+                try {
+                    T result = work.call();
+                    if (result == null) {
+                        emitter.onComplete();
+                    } else {
+                        emitter.onSuccess(result);
+                    }
+                } catch (Throwable e) {
+                    emitter.tryOnError(e);
+                }
+            }, emitter::tryOnError);
+            if (task != null) {
+                emitter.setCancellable(() -> dequeue(task));
+            }
+        });
+    }
+
+    /**
+     * Returns null (after reporting the rejection) if the task could not be queued.
+     */
+    private Task submit(Priority priority, Runnable work, Consumer<Throwable> onRejected) {
+        RejectedExecutionException rejection;
+        lock.lock();
+        try {
+            if (shutdown) {
+                rejection = new RejectedExecutionException("Database executor is shut down");
+            } else if (queuedTracked >= queueCapacity) {
+                rejection = new RejectedExecutionException(
+                        "Database executor queue is full (" + queueCapacity + " waiting)");
+            } else {
+                Task task = new Task(priority, work, true);
+                enqueue(task);
+                queuedTracked++;
+                return task;
+            }
+        } finally {
+            lock.unlock();
+        }
+        // Report outside the lock; the error handler may run downstream code
+        rejected.increment();
+        onRejected.accept(rejection);
+        return null;
+    }
+
+    private void executeContinuation(Priority priority, Runnable work) {
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new RejectedExecutionException("Database executor is shut down");
+            }
+            enqueue(new Task(priority, work, false));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enqueue(Task task) {
+        (task.tracked ? queues : continuations)[task.priority.ordinal()].addLast(task);
+        available.signal();
+    }
+
+    /**
+     * Scheduler over the database workers for multi-step work that is already running on
+     * a connection it holds, such as the fetches of a streaming cursor. Tasks scheduled
+     * here are queued at {@code priority} but skip the queue limit, connection accounting
+     * and metrics.
+     */
+    Scheduler scheduler(Priority priority) {
+        return schedulers[priority.ordinal()];
+    }
+
+    /**
+     * Counts a stream's connection as held until {@link #closeStream()}. Call from the
+     * task opening the stream, before it borrows the connection.
+     *
+     * @throws RejectedExecutionException if the maximum number of streams is already open
+     */
+    void openStream() {
+        lock.lock();
+        try {
+            if (openStreams >= maxStreams) {
+                rejected.increment();
+                throw new RejectedExecutionException("Too many open database streams (" + maxStreams + ")");
+            }
+            openStreams++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a slot taken by {@link #openStream()} once the stream's connection is back in the pool.
+     */
+    void closeStream() {
+        lock.lock();
+        try {
+            openStreams--;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dequeue(Task task) {
+        // Never interrupt a running JDBC call; only drop work that hasn't started
+        boolean removed;
+        lock.lock();
+        try {
+            removed = queues[task.priority.ordinal()].remove(task);
+            if (removed) {
+                queuedTracked--;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (removed) {
+            cancelled.increment();
+        }
+    }
+
+    private void runWorker() {
+        try {
+            Task task;
+            while ((task = take()) != null) {
+                long startedAt = System.nanoTime();
+                try {
+                    task.work.run();
+                } catch (Throwable e) {
+                    logger.warning("Database task failed: " + e);
+                } finally {
+                    if (task.tracked) {
+                        record(task, startedAt);
+                    }
+                    lock.lock();
+                    try {
+                        running[task.priority.ordinal()]--;
+                        if (task.tracked) {
+                            runningTracked--;
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        } finally {
+            terminated.countDown();
+        }
+    }
+
+    /**
+     * Blocks until a task may run on this worker, or returns null once shut down and drained.
+     */
+    private Task take() {
+        lock.lock();
+        try {
+            while (true) {
+                Task task = poll();
+                if (task != null) {
+                    running[task.priority.ordinal()]++;
+                    if (task.tracked) {
+                        queuedTracked--;
+                        runningTracked++;
+                    }
+                    return task;
+                }
+                if (shutdown && isEmpty()) {
+                    return null;
+                }
+                available.await();
+            }
+        } catch (InterruptedException e) {
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Task poll() {
+        int general = running[Priority.INTERACTIVE.ordinal()] + running[Priority.BACKGROUND.ordinal()];
+        boolean generalWorkerFree = general < workers - reserved;
+        // Continuations run on their stream's connection; other tasks need one of their own
+        int held = runningTracked + openStreams;
+        boolean generalConnectionFree = held < workers - reserved;
+        boolean connectionFree = held < workers;
+
+        if (generalWorkerFree) {
+            ArrayDeque<Task> background = next(Priority.BACKGROUND, generalConnectionFree);
+            if (background != null && System.nanoTime() - background.peekFirst().enqueuedAt >= BACKGROUND_AGING_NANOS) {
+                return background.pollFirst();
+            }
+            ArrayDeque<Task> interactive = next(Priority.INTERACTIVE, generalConnectionFree);
+            if (interactive != null) {
+                return interactive.pollFirst();
+            }
+        }
+        ArrayDeque<Task> login = next(Priority.LOGIN_CRITICAL, connectionFree);
+        if (login != null) {
+            return login.pollFirst();
+        }
+        if (generalWorkerFree) {
+            ArrayDeque<Task> background = next(Priority.BACKGROUND, generalConnectionFree);
+            return background != null ? background.pollFirst() : null;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the queue holding the oldest runnable task of a priority class, or null.
+     * Queued tasks are only runnable while a connection is free; continuations always are.
+     */
+    private ArrayDeque<Task> next(Priority priority, boolean connectionFree) {
+        ArrayDeque<Task> tasks = queues[priority.ordinal()];
+        ArrayDeque<Task> resumed = continuations[priority.ordinal()];
+        Task task = connectionFree ? tasks.peekFirst() : null;
+        Task continuation = resumed.peekFirst();
+        if (task == null) {
+            return continuation != null ? resumed : null;
+        }
+        if (continuation == null) {
+            return tasks;
+        }
+        return continuation.enqueuedAt - task.enqueuedAt < 0 ? resumed : tasks;
+    }
+
+    private boolean isEmpty() {
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            if (!queues[i].isEmpty() || !continuations[i].isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void record(Task task, long startedAt) {
+        long waitNanos = startedAt - task.enqueuedAt;
+        long runNanos = System.nanoTime() - startedAt;
+        int p = task.priority.ordinal();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulate(waitNanos);
+        totalRunNanos.add(runNanos);
+        maxRunNanos.accumulate(runNanos);
+        completed.increment();
+        waitNanosByPriority[p].add(waitNanos);
+        maxWaitNanosByPriority[p].accumulate(waitNanos);
+        completedByPriority[p].increment();
+    }
+
+    public Stats stats() {
+        int active = 0;
+        int queued = 0;
+        int[] queuedByPriority = new int[PRIORITIES.length];
+        lock.lock();
+        try {
+            for (int i = 0; i < PRIORITIES.length; i++) {
+                active += running[i];
+                queuedByPriority[i] = queues[i].size();
+                queued += queuedByPriority[i];
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        List<PriorityStats> priorities = new ArrayList<>(PRIORITIES.length);
+        for (Priority priority : PRIORITIES) {
+            int p = priority.ordinal();
+            priorities.add(new PriorityStats(priority, queuedByPriority[p], completedByPriority[p].sum(),
+                    waitNanosByPriority[p].sum(), maxWaitNanosByPriority[p].get()));
+        }
+
+        return new Stats(
+                workers,
+                active,
+                queued,
+                queueCapacity,
+                completed.sum(),
+                rejected.sum(),
+                cancelled.sum(),
+                totalWaitNanos.sum(),
+                maxWaitNanos.get(),
+                totalRunNanos.sum(),
+                maxRunNanos.get(),
+                priorities
+        );
+    }
+
+    /**
+     * Stops accepting work and waits briefly for queued writes to finish,
+     * so they run before the connection pool closes.
+     */
+    @Override
+    public void dispose() {
+        lock.lock();
+        try {
+            if (shutdown) {
+                return;
+            }
+            shutdown = true;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            if (!terminated.await(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                int dropped;
+                lock.lock();
+                try {
+                    dropped = 0;
+                    for (int i = 0; i < PRIORITIES.length; i++) {
+                        dropped += queues[i].size() + continuations[i].size();
+                        queues[i].clear();
+                        continuations[i].clear();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                logger.warning("Database executor did not drain within " + SHUTDOWN_TIMEOUT_SECONDS
+                        + "s; dropping " + dropped + " queued tasks");
+                threads.forEach(Thread::interrupt);
+            }
+        } catch (InterruptedException e) {
+            threads.forEach(Thread::interrupt);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return shutdown;
+    }
+}
@@ -3,17 +3,29 @@ package sh.joey.mc.storage;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import io.reactivex.rxjava3.disposables.Disposable;
+import org.jetbrains.annotations.Nullable;
 
 import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /**
- * Manages the HikariCP connection pool for PostgreSQL.
- * Reload-safe: will close existing pool before creating a new one.
+ * Manages the HikariCP connection pools for PostgreSQL: the primary and, when configured,
+ * a read-only pool on a streaming replica.
+ * Reload-safe: will close existing pools before creating new ones.
  */
 public final class DatabaseService implements Disposable {
 
+    // A dead replica should fall back to the primary quickly, not after Hikari's default 30s
+    private static final long REPLICA_CONNECTION_TIMEOUT_MS = 2_000;
+    // After a failed checkout, reads skip the replica this long before it is tried again
+    private static final long REPLICA_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(30);
+    // A dedicated connection blocked on a read this long is treated as dead
+    private static final int DEDICATED_SOCKET_TIMEOUT_SECONDS = 30;
+
     static {
         // Explicitly load the PostgreSQL driver.
         // ServiceLoader doesn't work reliably in shaded JARs.
@@ -26,47 +38,74 @@ public final class DatabaseService implements Disposable {
 
     private final Logger logger;
     private HikariDataSource dataSource;
+    private @Nullable HikariDataSource replicaDataSource;
     private boolean disposed = false;
-    private boolean logQueries = false;
+    // System.nanoTime() until which the replica is considered down; 0 when healthy
+    private volatile long replicaDownUntil;
+    private QueryMetrics metrics;
+    private DatabaseConfig config;
 
     public DatabaseService(Logger logger) {
         this.logger = logger;
     }
 
     /**
-     * Initialize the connection pool with the given configuration.
-     * If a pool already exists, it will be closed first.
+     * Initialize the connection pools with the given configuration.
+     * If pools already exist, they will be closed first.
      */
     public void initialize(DatabaseConfig config) {
-        if (dataSource != null && !dataSource.isClosed()) {
-            logger.info("Closing existing database connection pool");
-            dataSource.close();
+        closePools();
+        this.config = config;
+
+        // log-queries logs every statement through the slow-query log
+        long slowQueryMillis = config.logQueries() ? 0 : config.slowQueryMillis();
+        this.metrics = new QueryMetrics(logger, slowQueryMillis);
+
+        HikariConfig hikariConfig = poolConfig(config, config.jdbcUrl(), config.poolSize());
+        // Pool name for debugging
+        hikariConfig.setPoolName("SiqiJoey-PostgreSQL");
+        dataSource = new HikariDataSource(hikariConfig);
+        logger.info("Database connection pool initialized: " + config.jdbcUrl());
+
+        if (config.hasReplica()) {
+            HikariConfig replicaConfig = poolConfig(config, config.replicaJdbcUrl(), config.replicaPoolSize());
+            replicaConfig.setPoolName("SiqiJoey-PostgreSQL-Replica");
+            replicaConfig.setReadOnly(true);
+            replicaConfig.setConnectionTimeout(REPLICA_CONNECTION_TIMEOUT_MS);
+            // Start even if the replica is down; reads fall back to the primary until it's back
+            replicaConfig.setInitializationFailTimeout(-1);
+            replicaDataSource = new HikariDataSource(replicaConfig);
+            logger.info("Read replica connection pool initialized: " + config.replicaJdbcUrl());
         }
 
-        this.logQueries = config.logQueries();
+        if (config.logQueries()) {
+            logger.info("SQL query logging enabled");
+        }
+    }
 
+    private static HikariConfig poolConfig(DatabaseConfig config, String jdbcUrl, int poolSize) {
         HikariConfig hikariConfig = new HikariConfig();
-        hikariConfig.setJdbcUrl(config.jdbcUrl());
+        hikariConfig.setJdbcUrl(jdbcUrl);
         hikariConfig.setUsername(config.username());
         hikariConfig.setPassword(config.password());
-        hikariConfig.setMaximumPoolSize(config.poolSize());
+        hikariConfig.setMaximumPoolSize(poolSize);
+
+        // pgjdbc caches parsed statements per physical connection, keyed by SQL text, so
+        // storage methods can prepare their text blocks on every call. Server-side prepare
+        // from the first execution (the driver default waits for the fifth) skips
+        // re-planning for every statement that stays in the cache.
+        hikariConfig.addDataSourceProperty("prepareThreshold", config.prepareThreshold());
+        hikariConfig.addDataSourceProperty("preparedStatementCacheQueries", config.statementCacheQueries());
+        hikariConfig.addDataSourceProperty("preparedStatementCacheSizeMiB", config.statementCacheSizeMiB());
 
         // Connection validation
         hikariConfig.setConnectionTestQuery("SELECT 1");
-
-        // Pool name for debugging
-        hikariConfig.setPoolName("SiqiJoey-PostgreSQL");
-
-        dataSource = new HikariDataSource(hikariConfig);
-        logger.info("Database connection pool initialized: " + config.jdbcUrl());
-        if (logQueries) {
-            logger.info("SQL query logging enabled");
-        }
+        return hikariConfig;
     }
 
     /**
      * Get a connection from the pool.
-     * If query logging is enabled, returns a wrapped connection that logs SQL.
+     * The connection is wrapped to record statement metrics.
      *
      * @return a database connection
      * @throws SQLException if a connection cannot be obtained
@@ -75,11 +114,105 @@ public final class DatabaseService implements Disposable {
         if (dataSource == null || dataSource.isClosed()) {
             throw new SQLException("Database connection pool is not initialized or has been closed");
         }
-        Connection conn = dataSource.getConnection();
-        if (logQueries) {
-            return new LoggingConnection(conn, logger);
+        return acquire(dataSource);
+    }
+
+    /**
+     * Get a read-only connection from the replica pool. Reads on it may lag the primary.
+     * Never falls back to the primary, so replica workers can't take primary connections;
+     * instead a failed checkout marks the replica down for a backoff period (see
+     * {@link #isReplicaAvailable()}) and callers re-route the read.
+     *
+     * @return a replica connection
+     * @throws SQLException if no replica is configured or it can't hand out a connection
+     */
+    public Connection getReplicaConnection() throws SQLException {
+        HikariDataSource replica = replicaDataSource;
+        if (replica == null || replica.isClosed()) {
+            throw new ReplicaUnavailableException("No read replica pool", null);
+        }
+        try {
+            Connection conn = acquire(replica);
+            if (replicaDownUntil != 0) {
+                replicaDownUntil = 0;
+                logger.info("Read replica is back; routing reads to it again");
+            }
+            return conn;
+        } catch (SQLException e) {
+            boolean wasUp = replicaDownUntil == 0;
+            replicaDownUntil = System.nanoTime() + REPLICA_BACKOFF_NANOS;
+            if (wasUp) {
+                logger.warning("Read replica unavailable, reading from primary for "
+                        + TimeUnit.NANOSECONDS.toSeconds(REPLICA_BACKOFF_NANOS) + "s: " + e.getMessage());
+            }
+            throw new ReplicaUnavailableException("Read replica unavailable", e);
+        }
+    }
+
+    /**
+     * Returns true if a replica is configured and hasn't failed a checkout within the
+     * backoff period. Once the period ends the next read tries the replica again.
+     */
+    public boolean isReplicaAvailable() {
+        if (replicaDataSource == null) {
+            return false;
+        }
+        long downUntil = replicaDownUntil;
+        return downUntil == 0 || System.nanoTime() - downUntil >= 0;
+    }
+
+    /**
+     * Open a connection to the primary outside the pool, for a long-lived listener that
+     * would otherwise hold a pooled connection forever. The caller closes it.
+     * It isn't wrapped for metrics, so driver extensions are reachable through unwrap.
+     * TCP keepalive is on and socket reads time out, so a link that dies silently throws
+     * instead of leaving the caller waiting on it forever.
+     *
+     * @return a new, unpooled database connection
+     * @throws SQLException if the connection cannot be opened
+     */
+    public Connection openDedicatedConnection() throws SQLException {
+        if (config == null || disposed) {
+            throw new SQLException("Database is not initialized or has been closed");
+        }
+        Properties props = new Properties();
+        props.setProperty("user", config.username());
+        props.setProperty("password", config.password());
+        props.setProperty("tcpKeepAlive", "true");
+        props.setProperty("socketTimeout", String.valueOf(DEDICATED_SOCKET_TIMEOUT_SECONDS));
+        return DriverManager.getConnection(config.jdbcUrl(), props);
+    }
+
+    private Connection acquire(HikariDataSource pool) throws SQLException {
+        long start = System.nanoTime();
+        Connection conn = pool.getConnection();
+        metrics.recordAcquire(System.nanoTime() - start);
+        return new MetricsConnection(conn, metrics);
+    }
+
+    /**
+     * Returns true if a read replica pool is configured.
+     */
+    public boolean hasReplica() {
+        return replicaDataSource != null;
+    }
+
+    /**
+     * Returns statement latency, row and error metrics for connections from these pools.
+     */
+    public QueryMetrics metrics() {
+        return metrics;
+    }
+
+    private void closePools() {
+        if (dataSource != null && !dataSource.isClosed()) {
+            logger.info("Closing existing database connection pool");
+            dataSource.close();
+        }
+        if (replicaDataSource != null) {
+            replicaDataSource.close();
+            replicaDataSource = null;
         }
-        return conn;
     }
 
     @Override
@@ -89,6 +222,10 @@ public final class DatabaseService implements Disposable {
             dataSource.close();
             logger.info("Database connection pool closed");
         }
+        if (replicaDataSource != null && !replicaDataSource.isClosed()) {
+            replicaDataSource.close();
+            logger.info("Read replica connection pool closed");
+        }
     }
 
     @Override
@@ -0,0 +1,182 @@
+package sh.joey.mc.storage;
+
+import com.destroystokyo.paper.event.server.AsyncTabCompleteEvent.Completion;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Maybe;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.event.HoverEvent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.command.CommandSender;
+import sh.joey.mc.SiqiJoeyPlugin;
+import sh.joey.mc.cmd.Command;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * /dbstats [total|p99|errors] - shows database executor, query outcome, blob store and per-statement metrics.
+ */
+public final class DbStatsCommand implements Command {
+
+    private static final Component PREFIX = Component.text("[")
+            .color(NamedTextColor.DARK_GRAY)
+            .append(Component.text("DB").color(NamedTextColor.AQUA))
+            .append(Component.text("] ").color(NamedTextColor.DARK_GRAY));
+
+    private static final int TOP_STATEMENTS = 10;
+    private static final int SQL_PREVIEW_LENGTH = 48;
+    private static final List<String> SORTS = List.of("total", "p99", "errors");
+
+    private final StorageService storage;
+    private final BlobStore blobs;
+
+    public DbStatsCommand(StorageService storage, BlobStore blobs) {
+        this.storage = storage;
+        this.blobs = blobs;
+    }
+
+    @Override
+    public String getName() {
+        return "dbstats";
+    }
+
+    @Override
+    public String getPermission() {
+        return "smp.dbstats";
+    }
+
+    @Override
+    public Completable handle(SiqiJoeyPlugin plugin, CommandSender sender, String[] args) {
+        return Completable.fromAction(() -> {
+            String sort = args.length > 0 ? args[0].toLowerCase() : "total";
+            if (!SORTS.contains(sort)) {
+                sender.sendMessage(PREFIX.append(Component.text("Usage: /dbstats [total|p99|errors]")
+                        .color(NamedTextColor.RED)));
+                return;
+            }
+
+            DatabaseExecutor.Stats executor = storage.executorStats();
+            sender.sendMessage(PREFIX.append(Component.text("Executor:").color(NamedTextColor.WHITE)));
+            sender.sendMessage(formatStat("Workers active", executor.active() + "/" + executor.workers()));
+            sender.sendMessage(formatStat("Queued", executor.queued() + "/" + executor.queueCapacity()));
+            sender.sendMessage(formatStat("Completed", executor.completed()));
+            sender.sendMessage(formatStat("Rejected (queue full)", executor.rejected()));
+            sender.sendMessage(formatStat("Dropped while queued", executor.cancelled()));
+            sender.sendMessage(formatStat("Queue wait avg/max", String.format("%.1f / %.1f ms",
+                    executor.avgWaitMillis(), executor.maxWaitNanos() / 1_000_000.0)));
+            sender.sendMessage(formatStat("Run time avg/max", String.format("%.1f / %.1f ms",
+                    executor.avgRunMillis(), executor.maxRunNanos() / 1_000_000.0)));
+            for (DatabaseExecutor.PriorityStats priority : executor.priorities()) {
+                sender.sendMessage(formatStat(formatPriority(priority.priority()) + " wait avg/max",
+                        String.format("%.1f / %.1f ms (%d queued, %d done)",
+                                priority.avgWaitMillis(), priority.maxWaitNanos() / 1_000_000.0,
+                                priority.queued(), priority.completed())));
+            }
+
+            StorageService.ReplicaStats replica = storage.replicaStats();
+            if (replica != null) {
+                DatabaseExecutor.Stats replicaExecutor = replica.executor();
+                sender.sendMessage(Component.empty());
+                sender.sendMessage(PREFIX.append(Component.text("Read replica:").color(NamedTextColor.WHITE)));
+                sender.sendMessage(formatStat("Workers active",
+                        replicaExecutor.active() + "/" + replicaExecutor.workers()));
+                sender.sendMessage(formatStat("Queued",
+                        replicaExecutor.queued() + "/" + replicaExecutor.queueCapacity()));
+                sender.sendMessage(formatStat("Reads on replica", replica.replicaReads()));
+                sender.sendMessage(formatStat("Reads kept on primary (recent write)", replica.pinnedToPrimary()));
+                sender.sendMessage(formatStat("Reads on primary (replica down)", replica.replicaDown()));
+                sender.sendMessage(formatStat("Queue wait avg/max", String.format("%.1f / %.1f ms",
+                        replicaExecutor.avgWaitMillis(), replicaExecutor.maxWaitNanos() / 1_000_000.0)));
+            }
+
+            StorageService.QueryStats queries = storage.queryStats();
+            QueryMetrics metrics = storage.queryMetrics();
+            QueryMetrics.Latency acquire = metrics.acquireLatency();
+            sender.sendMessage(Component.empty());
+            sender.sendMessage(PREFIX.append(Component.text("Operations:").color(NamedTextColor.WHITE)));
+            sender.sendMessage(formatStat("Completed", queries.completed()));
+            sender.sendMessage(formatStat("Failed", queries.failed()));
+            sender.sendMessage(formatStat("Cancelled", queries.cancelled()));
+            sender.sendMessage(formatStat("Timed out", queries.timedOut()));
+            sender.sendMessage(formatStat("Connection acquire p50/p99/max", formatLatency(acquire)));
+
+            BlobStore.Stats blobStats = blobs.stats();
+            sender.sendMessage(Component.empty());
+            sender.sendMessage(PREFIX.append(Component.text("Blobs (since startup):").color(NamedTextColor.WHITE)));
+            sender.sendMessage(formatStat("Stored / written", blobStats.references() + " / " + blobStats.uploaded()));
+            sender.sendMessage(formatStat("Dedup ratio", String.format("%.2fx", blobStats.dedupRatio())));
+            sender.sendMessage(formatStat("Bytes saved", String.format("%.1f KiB of %.1f KiB",
+                    blobStats.bytesSaved() / 1024.0, blobStats.rawBytes() / 1024.0)));
+
+            List<QueryMetrics.TemplateStats> templates = metrics.templates();
+            if (!sort.equals("total")) {
+                templates = templates.stream()
+                        .sorted(sort.equals("p99")
+                                ? Comparator.comparingLong((QueryMetrics.TemplateStats t) -> t.latency().p99Micros()).reversed()
+                                : Comparator.comparingLong(QueryMetrics.TemplateStats::errors).reversed())
+                        .toList();
+            }
+
+            sender.sendMessage(Component.empty());
+            sender.sendMessage(PREFIX.append(Component.text("Statements by " + sort + " (hover for SQL):")
+                    .color(NamedTextColor.WHITE)));
+            if (templates.isEmpty()) {
+                sender.sendMessage(Component.text("  None yet").color(NamedTextColor.DARK_GRAY));
+            }
+            for (QueryMetrics.TemplateStats template : templates.subList(0, Math.min(TOP_STATEMENTS, templates.size()))) {
+                sender.sendMessage(formatTemplate(template));
+            }
+        });
+    }
+
+    @Override
+    public Maybe<List<Completion>> tabComplete(SiqiJoeyPlugin plugin, CommandSender sender, String[] args) {
+        if (args.length != 1) {
+            return Maybe.empty();
+        }
+        String partial = args[0].toLowerCase();
+        return Maybe.just(SORTS.stream()
+                .filter(sort -> sort.startsWith(partial))
+                .map(Completion::completion)
+                .toList());
+    }
+
+    private static Component formatTemplate(QueryMetrics.TemplateStats template) {
+        String sql = template.sql();
+        String preview = sql.length() > SQL_PREVIEW_LENGTH ? sql.substring(0, SQL_PREVIEW_LENGTH) + "…" : sql;
+        QueryMetrics.Latency latency = template.latency();
+
+        Component line = Component.text("  " + preview).color(NamedTextColor.AQUA)
+                .hoverEvent(HoverEvent.showText(Component.text(sql)));
+        Component detail = Component.text("    " + latency.count() + "x, " + formatLatency(latency)
+                        + ", " + template.rows() + " rows").color(NamedTextColor.GRAY);
+        if (template.errors() > 0) {
+            detail = detail.append(Component.text(", " + template.errors() + " errors").color(NamedTextColor.RED));
+        }
+        return line.append(Component.newline()).append(detail);
+    }
+
+    private static String formatPriority(Priority priority) {
+        return switch (priority) {
+            case INTERACTIVE -> "  Interactive";
+            case LOGIN_CRITICAL -> "  Login";
+            case BACKGROUND -> "  Background";
+        };
+    }
+
+    private static String formatLatency(QueryMetrics.Latency latency) {
+        return formatMicros(latency.p50Micros()) + " / " + formatMicros(latency.p99Micros())
+                + " / " + formatMicros(latency.maxMicros());
+    }
+
+    private static String formatMicros(long micros) {
+        return micros >= 1000
+                ? String.format("%.1fms", micros / 1000.0)
+                : micros + "µs";
+    }
+
+    private static Component formatStat(String name, Object value) {
+        return Component.text("  " + name + ": ").color(NamedTextColor.GRAY)
+                .append(Component.text(String.valueOf(value)).color(NamedTextColor.WHITE));
+    }
+}
@@ -19,61 +19,46 @@ import java.sql.Struct;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Executor;
-import java.util.logging.Logger;
 
 /**
- * Connection wrapper that logs SQL statements.
- * Delegates all calls to the wrapped connection.
+ * Base for connection wrappers.
+ * Delegates all calls to the wrapped connection; subclasses override what they intercept.
  */
-final class LoggingConnection implements Connection {
+abstract class DelegatingConnection implements Connection {
 
-    private final Connection delegate;
-    private final Logger logger;
+    protected final Connection delegate;
 
-    LoggingConnection(Connection delegate, Logger logger) {
+    protected DelegatingConnection(Connection delegate) {
         this.delegate = delegate;
-        this.logger = logger;
-    }
-
-    private void logSql(String sql) {
-        // Collapse whitespace for cleaner single-line output
-        String cleaned = sql.replaceAll("\\s+", " ").trim();
-        logger.info("[SQL] " + cleaned);
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql) throws SQLException {
-        logSql(sql);
         return delegate.prepareStatement(sql);
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
-        logSql(sql);
         return delegate.prepareStatement(sql, resultSetType, resultSetConcurrency);
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
-        logSql(sql);
         return delegate.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
-        logSql(sql);
         return delegate.prepareStatement(sql, autoGeneratedKeys);
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
-        logSql(sql);
         return delegate.prepareStatement(sql, columnIndexes);
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
-        logSql(sql);
         return delegate.prepareStatement(sql, columnNames);
     }
 
@@ -84,7 +69,6 @@ final class LoggingConnection implements Connection {
 
     @Override
     public CallableStatement prepareCall(String sql) throws SQLException {
-        logSql(sql);
         return delegate.prepareCall(sql);
     }
 
@@ -175,7 +159,6 @@ final class LoggingConnection implements Connection {
 
     @Override
     public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
-        logSql(sql);
         return delegate.prepareCall(sql, resultSetType, resultSetConcurrency);
     }
 
@@ -226,7 +209,6 @@ final class LoggingConnection implements Connection {
 
     @Override
     public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
-        logSql(sql);
         return delegate.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
     }
 
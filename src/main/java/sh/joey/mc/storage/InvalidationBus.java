@@ -0,0 +1,235 @@
+package sh.joey.mc.storage;
+
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+import io.reactivex.rxjava3.subjects.Subject;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Cache invalidation between server instances sharing one database, over Postgres
+ * {@code LISTEN/NOTIFY}.
+ * <p>
+ * Each domain declares a typed {@link Channel}, {@link #publish}es after a local change
+ * it has already applied, and subscribes with {@link #on} to evict exactly what another
+ * instance changed. An instance never receives its own notifications.
+ * <p>
+ * Notifications are only delivered to connected listeners, so while the listener
+ * connection is down changes are lost. After it reconnects, {@link #resyncs()} emits and
+ * subscribers should reload whatever they cache. Both streams are delivered on the
+ * scheduler passed in and complete when the bus is disposed.
+ */
+public final class InvalidationBus implements Disposable {
+
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+    private static final int POLL_MILLIS = 500;
+    // Polling only reads, so a half-open connection looks idle; a round trip this often
+    // makes it fail within the socket timeout and go through reconnect and resync
+    private static final int POLLS_PER_PING = 20;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    private static final char SEPARATOR = '|';
+
+    /**
+     * A notification channel carrying values of type {@code T}.
+     *
+     * @param name   the Postgres channel name (lower-case identifier)
+     * @param encode turns a value into the notification payload
+     * @param decode turns a payload back into a value
+     */
+    public record Channel<T>(String name, Function<T, String> encode, Function<String, T> decode) {
+        public Channel {
+            if (!CHANNEL_NAME.matcher(name).matches()) {
+                throw new IllegalArgumentException("Invalid channel name: " + name);
+            }
+        }
+
+        public static Channel<UUID> ofUuid(String name) {
+            return new Channel<>(name, UUID::toString, UUID::fromString);
+        }
+
+        public static Channel<String> ofString(String name) {
+            return new Channel<>(name, Function.identity(), Function.identity());
+        }
+    }
+
+    private final DatabaseService database;
+    private final StorageService storage;
+    private final Scheduler scheduler;
+    private final Logger logger;
+    // Tags outgoing payloads so our own notifications can be skipped
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, Subject<String>> channels = new ConcurrentHashMap<>();
+    private final Subject<Boolean> resyncs = PublishSubject.<Boolean>create().toSerialized();
+    private final Thread listener;
+    private volatile boolean disposed;
+
+    public InvalidationBus(DatabaseService database, StorageService storage, Scheduler scheduler, Logger logger) {
+        this.database = database;
+        this.storage = storage;
+        this.scheduler = scheduler;
+        this.logger = logger;
+        this.listener = new Thread(this::listen, "SiqiJoey-DB-Listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    /**
+     * Values published to {@code channel} by other instances.
+     */
+    public <T> Observable<T> on(Channel<T> channel) {
+        return subject(channel.name())
+                .observeOn(scheduler)
+                .flatMapMaybe(payload -> {
+                    try {
+                        return Maybe.just(channel.decode().apply(payload));
+                    } catch (RuntimeException e) {
+                        logger.warning("Ignoring malformed " + channel.name() + " notification: " + payload);
+                        return Maybe.empty();
+                    }
+                });
+    }
+
+    /**
+     * Emits after the listener reconnects, when notifications may have been missed.
+     */
+    public Observable<Boolean> resyncs() {
+        return resyncs.observeOn(scheduler);
+    }
+
+    /**
+     * Tell other instances that {@code value} changed. Fire-and-forget: failures are
+     * logged, since the local change has already been applied.
+     */
+    public <T> void publish(Channel<T> channel, T value) {
+        String payload = nodeId + SEPARATOR + channel.encode().apply(value);
+        storage.execute(conn -> notifySync(conn, channel.name(), payload))
+                .subscribe(() -> {}, err -> logger.warning(
+                        "Failed to publish " + channel.name() + " invalidation: " + err.getMessage()));
+    }
+
+    private static void ping(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("SELECT 1");
+        }
+    }
+
+    private static void notifySync(Connection conn, String channel, String payload) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT pg_notify(?, ?)")) {
+            stmt.setString(1, channel);
+            stmt.setString(2, payload);
+            stmt.execute();
+        }
+    }
+
+    private Subject<String> subject(String name) {
+        return channels.computeIfAbsent(name, n -> PublishSubject.<String>create().toSerialized());
+    }
+
+    private void listen() {
+        long backoff = 1_000;
+        // Set while disconnected; anything published meanwhile was missed
+        boolean missed = false;
+        while (!disposed) {
+            try (Connection conn = database.openDedicatedConnection()) {
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                Set<String> listening = new HashSet<>();
+                listenAll(conn, listening);
+                if (missed) {
+                    logger.info("Invalidation listener reconnected; resyncing caches");
+                    resyncs.onNext(Boolean.TRUE);
+                    missed = false;
+                }
+                backoff = 1_000;
+
+                int polls = 0;
+                while (!disposed) {
+                    // Channels subscribed to since the last poll
+                    listenAll(conn, listening);
+                    if (++polls % POLLS_PER_PING == 0) {
+                        ping(conn);
+                    }
+                    PGNotification[] notifications = pg.getNotifications(POLL_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification);
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (disposed) {
+                    break;
+                }
+                missed = true;
+                logger.warning("Invalidation listener lost its connection (retrying in " + backoff + "ms): "
+                        + e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    break;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private void listenAll(Connection conn, Set<String> listening) throws SQLException {
+        for (String name : channels.keySet()) {
+            if (!listening.contains(name)) {
+                try (Statement stmt = conn.createStatement()) {
+                    // Channel names are validated identifiers; LISTEN takes no bind parameters
+                    stmt.execute("LISTEN " + name);
+                }
+                listening.add(name);
+            }
+        }
+    }
+
+    private void dispatch(PGNotification notification) {
+        String payload = notification.getParameter();
+        int separator = payload.indexOf(SEPARATOR);
+        if (separator < 0 || payload.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        Subject<String> subject = channels.get(notification.getName());
+        if (subject != null) {
+            subject.onNext(payload.substring(separator + 1));
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (disposed) {
+            return;
+        }
+        disposed = true;
+        try {
+            // The listener notices within one poll
+            listener.join(POLL_MILLIS * 2L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channels.values().forEach(Subject::onComplete);
+        resyncs.onComplete();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed;
+    }
+}
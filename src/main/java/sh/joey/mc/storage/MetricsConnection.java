@@ -0,0 +1,582 @@
+package sh.joey.mc.storage;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLType;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+
+/**
+ * Connection wrapper that feeds {@link QueryMetrics}.
+ * <p>
+ * Statements and result sets are wrapped in hand-written delegates that override only
+ * the execute, bind and {@code next()} methods; everything else is a plain call through.
+ * The hot path is one timestamp pair per execute, one array store per bind and one
+ * counter increment per row. Binds record the parameter's shape, never its value.
+ * Binds through streams, readers and LOBs are not described.
+ */
+final class MetricsConnection extends DelegatingConnection {
+
+    private final QueryMetrics metrics;
+
+    MetricsConnection(Connection delegate, QueryMetrics metrics) {
+        super(delegate);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        return new MetricsStatement(delegate.createStatement());
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        return new MetricsStatement(delegate.createStatement(resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        return new MetricsStatement(delegate.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return new MetricsPreparedStatement(delegate.prepareStatement(sql), metrics.template(sql));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        return new MetricsPreparedStatement(delegate.prepareStatement(sql, resultSetType, resultSetConcurrency),
+                metrics.template(sql));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        return new MetricsPreparedStatement(
+                delegate.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability),
+                metrics.template(sql));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        return new MetricsPreparedStatement(delegate.prepareStatement(sql, autoGeneratedKeys), metrics.template(sql));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        return new MetricsPreparedStatement(delegate.prepareStatement(sql, columnIndexes), metrics.template(sql));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        return new MetricsPreparedStatement(delegate.prepareStatement(sql, columnNames), metrics.template(sql));
+    }
+
+    // Each execute reads System.nanoTime() before calling the driver and passes the result
+    // through one of these, so the timing stays inline and return values stay unboxed
+
+    private void failed(QueryMetrics.Template template, long start, QueryMetrics.@Nullable BindShapes binds) {
+        metrics.recordExecution(template, System.nanoTime() - start, true, binds);
+    }
+
+    private void succeeded(QueryMetrics.Template template, long start, QueryMetrics.@Nullable BindShapes binds) {
+        metrics.recordExecution(template, System.nanoTime() - start, false, binds);
+    }
+
+    private int succeeded(QueryMetrics.Template template, long start, QueryMetrics.@Nullable BindShapes binds,
+                          int rows) {
+        succeeded(template, start, binds);
+        if (rows > 0) {
+            template.rows.add(rows);
+        }
+        return rows;
+    }
+
+    private long succeeded(QueryMetrics.Template template, long start, QueryMetrics.@Nullable BindShapes binds,
+                           long rows) {
+        succeeded(template, start, binds);
+        if (rows > 0) {
+            template.rows.add(rows);
+        }
+        return rows;
+    }
+
+    private boolean succeeded(QueryMetrics.Template template, long start, QueryMetrics.@Nullable BindShapes binds,
+                              boolean hasResultSet) {
+        succeeded(template, start, binds);
+        return hasResultSet;
+    }
+
+    private ResultSet succeeded(QueryMetrics.Template template, long start, QueryMetrics.@Nullable BindShapes binds,
+                                ResultSet rs, Statement statement) {
+        succeeded(template, start, binds);
+        return new MetricsResultSet(rs, statement, template);
+    }
+
+    /**
+     * Times executions of a plain statement, whose template is the SQL passed to each
+     * execute call. Batches aren't attributed.
+     */
+    private final class MetricsStatement extends DelegatingStatement {
+
+        MetricsStatement(Statement delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public ResultSet executeQuery(String sql) throws SQLException {
+            QueryMetrics.Template template = metrics.template(sql);
+            long start = System.nanoTime();
+            try {
+                return succeeded(template, start, null, delegate.executeQuery(sql), this);
+            } catch (SQLException | RuntimeException e) {
+                failed(template, start, null);
+                throw e;
+            }
+        }
+
+        @Override
+        public int executeUpdate(String sql) throws SQLException {
+            QueryMetrics.Template template = metrics.template(sql);
+            long start = System.nanoTime();
+            try {
+                return succeeded(template, start, null, delegate.executeUpdate(sql));
+            } catch (SQLException | RuntimeException e) {
+                failed(template, start, null);
+                throw e;
+            }
+        }
+
+        @Override
+        public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+            QueryMetrics.Template template = metrics.template(sql);
+            long start = System.nanoTime();
+            try {
+                return succeeded(template, start, null, delegate.executeUpdate(sql, autoGeneratedKeys));
+            } catch (SQLException | RuntimeException e) {
+                failed(template, start, null);
+                throw e;
+            }
+        }
+
+        @Override
+        public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+            QueryMetrics.Template template = metrics.template(sql);
+            long start = System.nanoTime();
+            try {
+                return succeeded(template, start, null, delegate.executeUpdate(sql, columnIndexes));
+            } catch (SQLException | RuntimeException e) {
+                failed(template, start, null);
+                throw e;
+            }
+        }
+
+        @Override
+        public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+            QueryMetrics.Template template = metrics.template(sql);
+            long start = System.nanoTime();
+            try {
+                return succeeded(template, start, null, delegate.executeUpdate(sql, columnNames));
+            } catch (SQLException | RuntimeException e) {
+                failed(template, start, null);
+                throw e;
+            }
+        }
+
+        @Override
+        public long executeLargeUpdate(String sql) throws SQLException {
+            QueryMetrics.Template template = metrics.template(sql);
+            long start = System.nanoTime();
+            try {
+                return succeeded(template, start, null, delegate.executeLargeUpdate(sql));
+            } catch (SQLException | RuntimeException e) {
+                failed(template, start, null);
+                throw e;
+            }
+        }
+
+        @Override
+        public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+            QueryMetrics.Template template = metrics.template(sql);
+            long start = System.nanoTime();
+            try {
+                return succeeded(template, start, null, delegate.executeLargeUpdate(sql, autoGeneratedKeys));
+            } catch (SQLException | RuntimeException e) {
+                failed(template, start, null);
+                throw e;
+            }
+        }
+
+        @Override
+        public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
+            QueryMetrics.Template template = metrics.template(sql);
+            long start = System.nanoTime();
+            try {
+                return succeeded(template, start, null, delegate.executeLargeUpdate(sql, columnIndexes));
+            } catch (SQLException | RuntimeException e) {
+                failed(template, start, null);
+                throw e;
+            }
+        }
+
+        @Override
+        public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
+            QueryMetrics.Template template = metrics.template(sql);
+            long start = System.nanoTime();
+            try {
+                return succeeded(template, start, null, delegate.executeLargeUpdate(sql, columnNames));
+            } catch (SQLException | RuntimeException e) {
+                failed(template, start, null);
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean execute(String sql) throws SQLException {
+            QueryMetrics.Template template = metrics.template(sql);
+            long start = System.nanoTime();
+            try {
+                return succeeded(template, start, null, delegate.execute(sql));
+            } catch (SQLException | RuntimeException e) {
+                failed(template, start, null);
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+            QueryMetrics.Template template = metrics.template(sql);
+            long start = System.nanoTime();
+            try {
+                return succeeded(template, start, null, delegate.execute(sql, autoGeneratedKeys));
+            } catch (SQLException | RuntimeException e) {
+                failed(template, start, null);
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+            QueryMetrics.Template template = metrics.template(sql);
+            long start = System.nanoTime();
+            try {
+                return succeeded(template, start, null, delegate.execute(sql, columnIndexes));
+            } catch (SQLException | RuntimeException e) {
+                failed(template, start, null);
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean execute(String sql, String[] columnNames) throws SQLException {
+            QueryMetrics.Template template = metrics.template(sql);
+            long start = System.nanoTime();
+            try {
+                return succeeded(template, start, null, delegate.execute(sql, columnNames));
+            } catch (SQLException | RuntimeException e) {
+                failed(template, start, null);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Times executions against the statement's template and records the shape of each
+     * bind parameter. Calls that pass their own SQL go straight through (the driver
+     * rejects them on a prepared statement).
+     */
+    private final class MetricsPreparedStatement extends DelegatingPreparedStatement {
+        private final QueryMetrics.Template template;
+        // Created on the first bind; only read if the statement is slow
+        private QueryMetrics.@Nullable BindShapes binds;
+
+        MetricsPreparedStatement(PreparedStatement delegate, QueryMetrics.Template template) {
+            super(delegate);
+            this.template = template;
+        }
+
+        private void bind(int parameterIndex, String kind) {
+            shapes().record(parameterIndex, kind);
+        }
+
+        private void bind(int parameterIndex, @Nullable Object x, String kind) {
+            shapes().record(parameterIndex, x != null ? kind : "null");
+        }
+
+        private void bindObject(int parameterIndex, @Nullable Object x) {
+            if (x instanceof String s) {
+                shapes().record(parameterIndex, "String", s.length());
+            } else if (x instanceof byte[] bytes) {
+                shapes().record(parameterIndex, "bytes", bytes.length);
+            } else {
+                bind(parameterIndex, x, x != null ? x.getClass().getSimpleName() : "null");
+            }
+        }
+
+        private QueryMetrics.BindShapes shapes() {
+            if (binds == null) {
+                binds = new QueryMetrics.BindShapes();
+            }
+            return binds;
+        }
+
+        @Override
+        public ResultSet executeQuery() throws SQLException {
+            long start = System.nanoTime();
+            try {
+                return succeeded(template, start, binds, delegate.executeQuery(), this);
+            } catch (SQLException | RuntimeException e) {
+                failed(template, start, binds);
+                throw e;
+            }
+        }
+
+        @Override
+        public int executeUpdate() throws SQLException {
+            long start = System.nanoTime();
+            try {
+                return succeeded(template, start, binds, delegate.executeUpdate());
+            } catch (SQLException | RuntimeException e) {
+                failed(template, start, binds);
+                throw e;
+            }
+        }
+
+        @Override
+        public long executeLargeUpdate() throws SQLException {
+            long start = System.nanoTime();
+            try {
+                return succeeded(template, start, binds, delegate.executeLargeUpdate());
+            } catch (SQLException | RuntimeException e) {
+                failed(template, start, binds);
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean execute() throws SQLException {
+            long start = System.nanoTime();
+            try {
+                return succeeded(template, start, binds, delegate.execute());
+            } catch (SQLException | RuntimeException e) {
+                failed(template, start, binds);
+                throw e;
+            }
+        }
+
+        @Override
+        public int[] executeBatch() throws SQLException {
+            long start = System.nanoTime();
+            try {
+                int[] counts = delegate.executeBatch();
+                succeeded(template, start, binds);
+                return counts;
+            } catch (SQLException | RuntimeException e) {
+                failed(template, start, binds);
+                throw e;
+            }
+        }
+
+        @Override
+        public long[] executeLargeBatch() throws SQLException {
+            long start = System.nanoTime();
+            try {
+                long[] counts = delegate.executeLargeBatch();
+                succeeded(template, start, binds);
+                return counts;
+            } catch (SQLException | RuntimeException e) {
+                failed(template, start, binds);
+                throw e;
+            }
+        }
+
+        @Override
+        public void clearParameters() throws SQLException {
+            delegate.clearParameters();
+            if (binds != null) {
+                binds.clear();
+            }
+        }
+
+        @Override
+        public void setNull(int parameterIndex, int sqlType) throws SQLException {
+            delegate.setNull(parameterIndex, sqlType);
+            bind(parameterIndex, "null");
+        }
+
+        @Override
+        public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+            delegate.setNull(parameterIndex, sqlType, typeName);
+            bind(parameterIndex, "null");
+        }
+
+        @Override
+        public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+            delegate.setBoolean(parameterIndex, x);
+            bind(parameterIndex, "Boolean");
+        }
+
+        @Override
+        public void setByte(int parameterIndex, byte x) throws SQLException {
+            delegate.setByte(parameterIndex, x);
+            bind(parameterIndex, "Byte");
+        }
+
+        @Override
+        public void setShort(int parameterIndex, short x) throws SQLException {
+            delegate.setShort(parameterIndex, x);
+            bind(parameterIndex, "Short");
+        }
+
+        @Override
+        public void setInt(int parameterIndex, int x) throws SQLException {
+            delegate.setInt(parameterIndex, x);
+            bind(parameterIndex, "Int");
+        }
+
+        @Override
+        public void setLong(int parameterIndex, long x) throws SQLException {
+            delegate.setLong(parameterIndex, x);
+            bind(parameterIndex, "Long");
+        }
+
+        @Override
+        public void setFloat(int parameterIndex, float x) throws SQLException {
+            delegate.setFloat(parameterIndex, x);
+            bind(parameterIndex, "Float");
+        }
+
+        @Override
+        public void setDouble(int parameterIndex, double x) throws SQLException {
+            delegate.setDouble(parameterIndex, x);
+            bind(parameterIndex, "Double");
+        }
+
+        @Override
+        public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+            delegate.setBigDecimal(parameterIndex, x);
+            bind(parameterIndex, x, "BigDecimal");
+        }
+
+        @Override
+        public void setString(int parameterIndex, String x) throws SQLException {
+            delegate.setString(parameterIndex, x);
+            bindObject(parameterIndex, x);
+        }
+
+        @Override
+        public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+            delegate.setBytes(parameterIndex, x);
+            bindObject(parameterIndex, x);
+        }
+
+        @Override
+        public void setDate(int parameterIndex, Date x) throws SQLException {
+            delegate.setDate(parameterIndex, x);
+            bind(parameterIndex, x, "Date");
+        }
+
+        @Override
+        public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
+            delegate.setDate(parameterIndex, x, cal);
+            bind(parameterIndex, x, "Date");
+        }
+
+        @Override
+        public void setTime(int parameterIndex, Time x) throws SQLException {
+            delegate.setTime(parameterIndex, x);
+            bind(parameterIndex, x, "Time");
+        }
+
+        @Override
+        public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
+            delegate.setTime(parameterIndex, x, cal);
+            bind(parameterIndex, x, "Time");
+        }
+
+        @Override
+        public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+            delegate.setTimestamp(parameterIndex, x);
+            bind(parameterIndex, x, "Timestamp");
+        }
+
+        @Override
+        public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+            delegate.setTimestamp(parameterIndex, x, cal);
+            bind(parameterIndex, x, "Timestamp");
+        }
+
+        @Override
+        public void setObject(int parameterIndex, Object x) throws SQLException {
+            delegate.setObject(parameterIndex, x);
+            bindObject(parameterIndex, x);
+        }
+
+        @Override
+        public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+            delegate.setObject(parameterIndex, x, targetSqlType);
+            bindObject(parameterIndex, x);
+        }
+
+        @Override
+        public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+            delegate.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+            bindObject(parameterIndex, x);
+        }
+
+        @Override
+        public void setObject(int parameterIndex, Object x, SQLType targetSqlType) throws SQLException {
+            delegate.setObject(parameterIndex, x, targetSqlType);
+            bindObject(parameterIndex, x);
+        }
+
+        @Override
+        public void setObject(int parameterIndex, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException {
+            delegate.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+            bindObject(parameterIndex, x);
+        }
+
+        @Override
+        public void setArray(int parameterIndex, Array x) throws SQLException {
+            delegate.setArray(parameterIndex, x);
+            bind(parameterIndex, x, "Array");
+        }
+    }
+
+    /**
+     * Counts rows as they are read.
+     */
+    private static final class MetricsResultSet extends DelegatingResultSet {
+        private final Statement statement;
+        private final QueryMetrics.Template template;
+
+        MetricsResultSet(ResultSet delegate, Statement statement, QueryMetrics.Template template) {
+            super(delegate);
+            this.statement = statement;
+            this.template = template;
+        }
+
+        @Override
+        public boolean next() throws SQLException {
+            boolean hasRow = delegate.next();
+            if (hasRow) {
+                template.rows.increment();
+            }
+            return hasRow;
+        }
+
+        @Override
+        public Statement getStatement() {
+            return statement;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package sh.joey.mc.storage;
+
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.disposables.Disposable;
+import sh.joey.mc.SiqiJoeyPlugin;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Keeps monthly partitions of the partitioned tables created ahead of time, on startup
+ * and then daily, so inserts never run past the last partition.
+ * <p>
+ * Creating a partition briefly locks its parent. The lock wait is capped so maintenance
+ * gives up and retries the next day rather than queueing every session and message
+ * write behind a long-running query.
+ */
+public final class PartitionMaintenance implements Disposable {
+
+    private static final List<String> TABLES = List.of("player_sessions", "private_messages");
+    private static final int MONTHS_AHEAD = 3;
+    private static final String LOCK_TIMEOUT = "5s";
+
+    private final StorageService storage;
+    private final Logger logger;
+    private final Disposable task;
+
+    public PartitionMaintenance(SiqiJoeyPlugin plugin, StorageService storage) {
+        this.storage = storage.withPriority(Priority.BACKGROUND);
+        this.logger = plugin.getLogger();
+        this.task = plugin.interval(0, 1, TimeUnit.DAYS)
+                .concatMapCompletable(tick -> ensurePartitions()
+                        .doOnError(err -> logger.warning("Partition maintenance failed: " + err.getMessage()))
+                        .onErrorComplete())
+                .subscribe();
+    }
+
+    private Completable ensurePartitions() {
+        return storage.executeInTransaction(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SET LOCAL lock_timeout = '" + LOCK_TIMEOUT + "'");
+            }
+
+            String sql = """
+                SELECT create_monthly_partitions(?, date_trunc('month', NOW() AT TIME ZONE 'UTC')::date, ?)
+                """;
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (String table : TABLES) {
+                    stmt.setString(1, table);
+                    stmt.setInt(2, MONTHS_AHEAD);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        rs.next();
+                        int created = rs.getInt(1);
+                        if (created > 0) {
+                            logger.info("Created " + created + " partition(s) of " + table);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    public void dispose() {
+        task.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return task.isDisposed();
+    }
+}
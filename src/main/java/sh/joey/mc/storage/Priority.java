@@ -0,0 +1,23 @@
+package sh.joey.mc.storage;
+
+/**
+ * Scheduling class for database work, see {@link StorageService#withPriority(Priority)}.
+ */
+public enum Priority {
+    /**
+     * A player or command is waiting on the result (the default). Served first.
+     */
+    INTERACTIVE,
+
+    /**
+     * Reads and writes a player's join waits on. Can always use a worker that
+     * interactive and background work leave free.
+     */
+    LOGIN_CRITICAL,
+
+    /**
+     * Heartbeats, buffered flushes and other work nobody is waiting on. Served last,
+     * but never starved: once it has waited long enough it goes ahead of everything.
+     */
+    BACKGROUND
+}
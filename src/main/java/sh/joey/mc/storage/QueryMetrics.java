@@ -0,0 +1,190 @@
+package sh.joey.mc.storage;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Per-statement metrics for every connection handed out by {@link DatabaseService}.
+ * <p>
+ * Statements are grouped by their SQL text, which for prepared statements is the
+ * template with {@code ?} placeholders. Each template keeps a latency histogram, row
+ * and error counts. Statements slower than the slow-query threshold are logged with
+ * the shapes (types and sizes, never values) of their bind parameters.
+ */
+public final class QueryMetrics {
+
+    private static final int MAX_TEMPLATES = 256;
+    private static final String OVERFLOW_TEMPLATE = "(other statements)";
+
+    /**
+     * Latency summary in microseconds.
+     */
+    public record Latency(long count, long p50Micros, long p99Micros, long maxMicros, long totalMicros) {
+        static Latency of(LatencyHistogram histogram) {
+            return new Latency(
+                    histogram.count(),
+                    histogram.percentileMicros(50),
+                    histogram.percentileMicros(99),
+                    histogram.maxMicros(),
+                    histogram.totalMicros()
+            );
+        }
+    }
+
+    /**
+     * Metrics for one statement template.
+     *
+     * @param sql     the template with whitespace collapsed
+     * @param latency execution latency (time until the driver returns, not including row reads)
+     * @param rows    rows read from result sets plus rows reported by updates
+     * @param errors  executions that threw
+     */
+    public record TemplateStats(String sql, Latency latency, long rows, long errors) {}
+
+    /**
+     * Shapes of a statement's bind parameters by index: the kind of value and, for strings
+     * and byte arrays, its length. Values are never kept, so an open statement doesn't pin
+     * large payloads.
+     */
+    static final class BindShapes {
+        private static final int NO_SIZE = -1;
+
+        private String[] kinds = new String[16];
+        private int[] sizes = new int[16];
+
+        void record(int index, String kind) {
+            record(index, kind, NO_SIZE);
+        }
+
+        void record(int index, String kind, int size) {
+            int slot = index - 1;
+            if (slot < 0) {
+                return;
+            }
+            if (slot >= kinds.length) {
+                int length = Math.max(kinds.length * 2, slot + 1);
+                kinds = Arrays.copyOf(kinds, length);
+                sizes = Arrays.copyOf(sizes, length);
+            }
+            kinds[slot] = kind;
+            sizes[slot] = size;
+        }
+
+        void clear() {
+            Arrays.fill(kinds, null);
+        }
+
+        /**
+         * Formats the shapes, e.g. {@code [$1=UUID, $2=String(12), $3=Int]}.
+         */
+        String describe() {
+            StringBuilder sb = new StringBuilder(" [");
+            boolean first = true;
+            for (int i = 0; i < kinds.length; i++) {
+                if (kinds[i] == null) {
+                    continue;
+                }
+                if (!first) {
+                    sb.append(", ");
+                }
+                first = false;
+                sb.append('$').append(i + 1).append('=').append(kinds[i]);
+                if (sizes[i] != NO_SIZE) {
+                    sb.append('(').append(sizes[i]).append(')');
+                }
+            }
+            return sb.append(']').toString();
+        }
+    }
+
+    static final class Template {
+        final String sql;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder rows = new LongAdder();
+        final LongAdder errors = new LongAdder();
+
+        private Template(String sql) {
+            this.sql = sql;
+        }
+    }
+
+    private final Logger logger;
+    private final long slowQueryNanos;
+    private final ConcurrentHashMap<String, Template> templates = new ConcurrentHashMap<>();
+    private final Template overflow = new Template(OVERFLOW_TEMPLATE);
+    private final LatencyHistogram acquire = new LatencyHistogram();
+
+    /**
+     * @param slowQueryMillis statements at least this slow are logged; 0 logs every statement,
+     *                        negative disables the log
+     */
+    QueryMetrics(Logger logger, long slowQueryMillis) {
+        this.logger = logger;
+        this.slowQueryNanos = slowQueryMillis < 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(slowQueryMillis);
+    }
+
+    Template template(String sql) {
+        Template template = templates.get(sql);
+        if (template != null) {
+            return template;
+        }
+        // Dynamically built SQL (e.g. multi-row upserts) could otherwise grow this without bound
+        if (templates.size() >= MAX_TEMPLATES) {
+            return overflow;
+        }
+        return templates.computeIfAbsent(sql, key -> new Template(collapseWhitespace(key)));
+    }
+
+    void recordAcquire(long nanos) {
+        acquire.record(nanos);
+    }
+
+    void recordExecution(Template template, long nanos, boolean failed, @Nullable BindShapes binds) {
+        template.latency.record(nanos);
+        if (failed) {
+            template.errors.increment();
+        }
+        if (nanos >= slowQueryNanos) {
+            logger.info("[SQL] " + TimeUnit.NANOSECONDS.toMillis(nanos) + "ms" + (failed ? " (failed)" : "")
+                    + ": " + template.sql + (binds != null ? binds.describe() : ""));
+        }
+    }
+
+    /**
+     * Returns connection-acquire wait times.
+     */
+    public Latency acquireLatency() {
+        return Latency.of(acquire);
+    }
+
+    /**
+     * Returns every template seen so far, slowest total time first.
+     */
+    public List<TemplateStats> templates() {
+        List<TemplateStats> result = new ArrayList<>(templates.size() + 1);
+        for (Template template : templates.values()) {
+            result.add(stats(template));
+        }
+        if (overflow.latency.count() > 0) {
+            result.add(stats(overflow));
+        }
+        result.sort(Comparator.comparingLong((TemplateStats stats) -> stats.latency().totalMicros()).reversed());
+        return result;
+    }
+
+    private static TemplateStats stats(Template template) {
+        return new TemplateStats(template.sql, Latency.of(template.latency), template.rows.sum(), template.errors.sum());
+    }
+
+    private static String collapseWhitespace(String sql) {
+        return sql.replaceAll("\\s+", " ").trim();
+    }
+}
@@ -0,0 +1,16 @@
+package sh.joey.mc.storage;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.SQLException;
+
+/**
+ * Thrown when a read can't get a replica connection. Nothing has run on the database yet,
+ * so the read can safely be retried on the primary.
+ */
+final class ReplicaUnavailableException extends SQLException {
+
+    ReplicaUnavailableException(String message, @Nullable Throwable cause) {
+        super(message, cause);
+    }
+}
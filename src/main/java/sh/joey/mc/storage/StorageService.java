@@ -3,89 +3,705 @@ package sh.joey.mc.storage;
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.Scheduler;
 import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.disposables.CompositeDisposable;
 import io.reactivex.rxjava3.schedulers.Schedulers;
+import org.jetbrains.annotations.Nullable;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
 
 /**
  * Provides async database operations using RxJava.
- * Operations run on an IO thread pool and results are observed on the main thread.
+ * Operations run on the {@link DatabaseExecutor}, which fails them fast with a
+ * {@link java.util.concurrent.RejectedExecutionException} when its queue is full.
+ * Disposing a subscription cancels the operation's running statement.
+ * <p>
+ * The {@code read...} variants run on the read replica when one is configured. A read
+ * names the subject it belongs to (usually a player id); after {@link #markWritten}
+ * for that subject, its reads go to the primary for the sticky window, so a player
+ * always sees their own writes despite replication lag. While the replica is down
+ * (see {@link DatabaseService#isReplicaAvailable()}) reads go straight to the primary
+ * executor, and a read whose replica checkout fails is re-run there.
  */
 public final class StorageService {
 
+    private static final long WRITE_BEHIND_INTERVAL_MS = 250;
+    private static final Duration NO_TIMEOUT = Duration.ZERO;
+    // Past this many sticky subjects, expired ones are swept on the next write
+    private static final int STICKY_SWEEP_THRESHOLD = 1024;
+
+    /**
+     * Outcome counts for operations that reached the database.
+     *
+     * @param completed operations that returned normally
+     * @param failed    operations that threw for any other reason
+     * @param cancelled operations stopped because their subscriber disposed
+     * @param timedOut  operations stopped by their query timeout
+     */
+    public record QueryStats(long completed, long failed, long cancelled, long timedOut) {}
+
+    /**
+     * Read replica routing metrics.
+     *
+     * @param executor        the replica executor's metrics
+     * @param replicaReads    read operations sent to the replica
+     * @param pinnedToPrimary read operations sent to the primary because their subject wrote recently
+     * @param replicaDown     read operations sent to the primary because the replica was down
+     */
+    public record ReplicaStats(DatabaseExecutor.Stats executor, long replicaReads, long pinnedToPrimary,
+                               long replicaDown) {}
+
     private final DatabaseService database;
+    private final DatabaseExecutor executor;
+    private final @Nullable DatabaseExecutor replicaExecutor;
+    private final long stickyNanos;
+    private final Logger logger;
+    private final Priority priority;
+    private final List<WriteBehindQueue<?, ?>> writeBehindQueues;
+    private final CompositeDisposable flushTimers;
+    private final LongAdder queriesCompleted;
+    private final LongAdder queriesFailed;
+    private final LongAdder queriesCancelled;
+    private final LongAdder queriesTimedOut;
+    // Subject -> System.nanoTime() until which its reads stay on the primary
+    private final Map<Object, Long> stickyUntil;
+    private final LongAdder replicaReads;
+    private final LongAdder pinnedReads;
+    private final LongAdder replicaDownReads;
+
+    public StorageService(DatabaseService database, DatabaseExecutor executor, Logger logger) {
+        this(database, executor, null, Duration.ZERO, logger);
+    }
 
-    public StorageService(DatabaseService database) {
+    /**
+     * @param replicaExecutor runs reads on the replica pool, or null to run them on the primary
+     * @param stickyWindow    how long a subject's reads stay on the primary after it writes
+     */
+    public StorageService(DatabaseService database, DatabaseExecutor executor,
+                          @Nullable DatabaseExecutor replicaExecutor, Duration stickyWindow, Logger logger) {
         this.database = database;
+        this.executor = executor;
+        this.replicaExecutor = replicaExecutor;
+        this.stickyNanos = stickyWindow.toNanos();
+        this.logger = logger;
+        this.priority = Priority.INTERACTIVE;
+        this.writeBehindQueues = new CopyOnWriteArrayList<>();
+        this.flushTimers = new CompositeDisposable();
+        this.queriesCompleted = new LongAdder();
+        this.queriesFailed = new LongAdder();
+        this.queriesCancelled = new LongAdder();
+        this.queriesTimedOut = new LongAdder();
+        this.stickyUntil = new ConcurrentHashMap<>();
+        this.replicaReads = new LongAdder();
+        this.pinnedReads = new LongAdder();
+        this.replicaDownReads = new LongAdder();
+    }
+
+    private StorageService(StorageService base, Priority priority) {
+        this.database = base.database;
+        this.executor = base.executor;
+        this.replicaExecutor = base.replicaExecutor;
+        this.stickyNanos = base.stickyNanos;
+        this.logger = base.logger;
+        this.priority = priority;
+        this.writeBehindQueues = base.writeBehindQueues;
+        this.flushTimers = base.flushTimers;
+        this.queriesCompleted = base.queriesCompleted;
+        this.queriesFailed = base.queriesFailed;
+        this.queriesCancelled = base.queriesCancelled;
+        this.queriesTimedOut = base.queriesTimedOut;
+        this.stickyUntil = base.stickyUntil;
+        this.replicaReads = base.replicaReads;
+        this.pinnedReads = base.pinnedReads;
+        this.replicaDownReads = base.replicaDownReads;
+    }
+
+    /**
+     * Returns a view of this service whose operations are queued at {@code priority}
+     * instead of {@link Priority#INTERACTIVE}. Views share everything else, including
+     * metrics and write-behind queues, so storage classes can keep one per class of work.
+     */
+    public StorageService withPriority(Priority priority) {
+        return priority == this.priority ? this : new StorageService(this, priority);
     }
 
     /**
      * Execute a database query that returns a result.
-     * Runs on IO thread pool.
+     * Runs on the database executor.
      *
      * @param operation the database operation to execute
      * @param <T> the type of the result
-     * @return a Single that emits the result on the main thread
+     * @return a Single that emits the result on the database worker, not the main thread
      */
     public <T> Single<T> query(SqlFunction<Connection, T> operation) {
-        return Single.<T>fromCallable(() -> {
-            try (Connection conn = database.getConnection()) {
-                return operation.apply(conn);
-            }
-        })
-        .subscribeOn(Schedulers.io());
+        return query(operation, NO_TIMEOUT);
+    }
+
+    /**
+     * Execute a database query that returns a result, failing any statement that runs
+     * longer than {@code timeout}.
+     */
+    public <T> Single<T> query(SqlFunction<Connection, T> operation, Duration timeout) {
+        return Single.defer(() -> {
+            Operation op = new Operation(timeout, false);
+            return executor.single(priority, () -> op.run(operation))
+                    .doOnDispose(op::dispose);
+        });
     }
 
     /**
      * Execute a database query that may or may not return a result.
-     * Runs on IO thread pool.
+     * Runs on the database executor.
      *
      * @param operation the database operation to execute (returns null if no result)
      * @param <T> the type of the result
      * @return a Maybe that emits the result or completes empty if null
      */
     public <T> Maybe<T> queryMaybe(SqlFunction<Connection, T> operation) {
-        return Maybe.<T>fromCallable(() -> {
-            try (Connection conn = database.getConnection()) {
-                return operation.apply(conn);
-            }
-        })
-        .subscribeOn(Schedulers.io());
+        return queryMaybe(operation, NO_TIMEOUT);
+    }
+
+    /**
+     * Execute a database query that may or may not return a result, failing any
+     * statement that runs longer than {@code timeout}.
+     */
+    public <T> Maybe<T> queryMaybe(SqlFunction<Connection, T> operation, Duration timeout) {
+        return Maybe.defer(() -> {
+            Operation op = new Operation(timeout, false);
+            return executor.maybe(priority, () -> op.run(operation))
+                    .doOnDispose(op::dispose);
+        });
     }
 
     /**
      * Execute a database query that returns multiple results.
-     * Runs on IO thread pool.
+     * Runs on the database executor. The whole result is materialized before the
+     * first item is emitted; use {@link #stream} for large or unbounded results.
      *
      * @param operation the database operation to execute
      * @param <T> the type of each result item
-     * @return a Flowable that emits each result item on the main thread
+     * @return a Flowable that emits each result item on the database worker
      */
     public <T> Flowable<T> queryFlowable(SqlFunction<Connection, List<T>> operation) {
-        return Single.fromCallable(() -> {
-            try (Connection conn = database.getConnection()) {
-                return operation.apply(conn);
+        return queryFlowable(operation, NO_TIMEOUT);
+    }
+
+    /**
+     * Execute a database query that returns multiple results, failing any statement
+     * that runs longer than {@code timeout}.
+     */
+    public <T> Flowable<T> queryFlowable(SqlFunction<Connection, List<T>> operation, Duration timeout) {
+        return query(operation, timeout).flattenAsFlowable(list -> list);
+    }
+
+    /**
+     * Execute a read-only query on the read replica, or on the primary if there is none
+     * or {@code subject} wrote within the sticky window. The operation must not write.
+     *
+     * @param subject   what the read is about, usually a player id; see {@link #markWritten}
+     * @param operation the database operation to execute
+     * @param <T> the type of the result
+     * @return a Single that emits the result
+     */
+    public <T> Single<T> readQuery(Object subject, SqlFunction<Connection, T> operation) {
+        return Single.defer(() -> {
+            DatabaseExecutor target = readExecutor(subject);
+            if (target == executor) {
+                return query(operation);
+            }
+            Operation op = new Operation(NO_TIMEOUT, true);
+            return target.single(priority, () -> op.run(operation))
+                    .doOnDispose(op::dispose)
+                    .onErrorResumeNext(e -> replicaFailed(e) ? query(operation) : Single.error(e));
+        });
+    }
+
+    /**
+     * Execute a read-only query that may or may not return a result; routed like
+     * {@link #readQuery}.
+     */
+    public <T> Maybe<T> readQueryMaybe(Object subject, SqlFunction<Connection, T> operation) {
+        return Maybe.defer(() -> {
+            DatabaseExecutor target = readExecutor(subject);
+            if (target == executor) {
+                return queryMaybe(operation);
+            }
+            Operation op = new Operation(NO_TIMEOUT, true);
+            return target.maybe(priority, () -> op.run(operation))
+                    .doOnDispose(op::dispose)
+                    .onErrorResumeNext(e -> replicaFailed(e) ? queryMaybe(operation) : Maybe.error(e));
+        });
+    }
+
+    /**
+     * Execute a read-only query that returns multiple results; routed like {@link #readQuery}.
+     */
+    public <T> Flowable<T> readQueryFlowable(Object subject, SqlFunction<Connection, List<T>> operation) {
+        return readQuery(subject, operation).flattenAsFlowable(list -> list);
+    }
+
+    /**
+     * Record that {@code subject} was just written, so its reads stay on the primary until
+     * the replica has had time to catch up. Call it from inside the write operation.
+     */
+    public void markWritten(Object subject) {
+        if (replicaExecutor == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        stickyUntil.put(subject, now + stickyNanos);
+        if (stickyUntil.size() > STICKY_SWEEP_THRESHOLD) {
+            stickyUntil.values().removeIf(until -> until - now <= 0);
+        }
+    }
+
+    private DatabaseExecutor readExecutor(Object subject) {
+        if (replicaExecutor == null) {
+            return executor;
+        }
+        if (!database.isReplicaAvailable()) {
+            replicaDownReads.increment();
+            return executor;
+        }
+        Long until = stickyUntil.get(subject);
+        if (until != null) {
+            if (until - System.nanoTime() > 0) {
+                pinnedReads.increment();
+                return executor;
+            }
+            stickyUntil.remove(subject, until);
+        }
+        replicaReads.increment();
+        return replicaExecutor;
+    }
+
+    /**
+     * Returns true if a replica read failed before reaching the database, so it can be
+     * re-run on the primary.
+     */
+    private boolean replicaFailed(Throwable error) {
+        if (error instanceof ReplicaUnavailableException) {
+            replicaDownReads.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Stream a query's rows through a server-side cursor with backpressure.
+     * <p>
+     * Unlike {@link #queryFlowable}, rows are fetched {@code fetchSize} at a time as
+     * downstream requests them, so memory stays bounded however large the result is.
+     * The cursor needs a transaction, so the stream holds one pooled connection (with
+     * auto-commit off) until it completes, errors or is cancelled, and counts against the
+     * executor's connections for that long. Opening the cursor is queued like any other
+     * operation; fetches run on the database workers at this view's priority, interleaved
+     * with other queued work. Fails with a {@link java.util.concurrent.RejectedExecutionException}
+     * if too many streams are already open.
+     *
+     * @param prepare   creates the statement and binds its parameters
+     * @param mapper    maps the current row
+     * @param fetchSize rows fetched per round trip
+     * @param <T> the type of each row
+     * @return a Flowable that emits each row
+     */
+    public <T> Flowable<T> stream(SqlFunction<Connection, PreparedStatement> prepare,
+                                  SqlFunction<ResultSet, T> mapper, int fetchSize) {
+        return stream(executor, prepare, mapper, fetchSize);
+    }
+
+    /**
+     * Stream a read-only query's rows like {@link #stream}, routed like {@link #readQuery}.
+     */
+    public <T> Flowable<T> readStream(Object subject, SqlFunction<Connection, PreparedStatement> prepare,
+                                      SqlFunction<ResultSet, T> mapper, int fetchSize) {
+        return Flowable.defer(() -> {
+            DatabaseExecutor target = readExecutor(subject);
+            if (target == executor) {
+                return stream(executor, prepare, mapper, fetchSize);
+            }
+            // The replica checkout happens before the first row, so nothing has been emitted yet
+            return stream(target, prepare, mapper, fetchSize)
+                    .onErrorResumeNext(e -> replicaFailed(e)
+                            ? stream(executor, prepare, mapper, fetchSize)
+                            : Flowable.error(e));
+        });
+    }
+
+    private <T> Flowable<T> stream(DatabaseExecutor target, SqlFunction<Connection, PreparedStatement> prepare,
+                                   SqlFunction<ResultSet, T> mapper, int fetchSize) {
+        boolean replica = target != executor;
+        Scheduler fetches = target.scheduler(priority);
+        return Flowable.defer(() -> {
+            CursorHandoff handoff = new CursorHandoff(fetches);
+            return target.single(priority, () -> {
+                        target.openStream();
+                        try {
+                            Connection conn = replica ? database.getReplicaConnection() : database.getConnection();
+                            handoff.offer(Cursor.open(target, conn, prepare, fetchSize));
+                        } catch (Throwable e) {
+                            target.closeStream();
+                            throw e;
+                        }
+                        return handoff;
+                    })
+                    .doOnDispose(handoff::abandon)
+                    .flatMapPublisher(opened -> Flowable.<T, Cursor>generate(
+                                    opened::claim,
+                                    (cursor, emitter) -> {
+                                        if (cursor.rs.next()) {
+                                            emitter.onNext(mapper.apply(cursor.rs));
+                                        } else {
+                                            emitter.onComplete();
+                                        }
+                                    },
+                                    Cursor::close)
+                            .subscribeOn(fetches, true)
+                            .unsubscribeOn(fetches)
+                            .doOnCancel(opened::abandon));
+        });
+    }
+
+    /**
+     * Passes an opened cursor from the task that opened it to the stream that reads it,
+     * closing it instead if the subscriber goes away in between.
+     */
+    private static final class CursorHandoff {
+        private final Scheduler closer;
+        private @Nullable Cursor cursor;
+        private boolean claimed;
+        private boolean abandoned;
+
+        CursorHandoff(Scheduler closer) {
+            this.closer = closer;
+        }
+
+        void offer(Cursor opened) {
+            synchronized (this) {
+                if (!abandoned) {
+                    cursor = opened;
+                    return;
+                }
             }
-        })
-        .subscribeOn(Schedulers.io())
-        .flattenAsFlowable(list -> list);
+            opened.closeQuietly();
+        }
+
+        synchronized Cursor claim() {
+            if (abandoned || cursor == null) {
+                throw new CancellationException("Stream was cancelled before it started");
+            }
+            claimed = true;
+            return cursor;
+        }
+
+        void abandon() {
+            Cursor unclaimed;
+            synchronized (this) {
+                abandoned = true;
+                unclaimed = claimed ? null : cursor;
+                cursor = null;
+            }
+            if (unclaimed != null) {
+                // Closing rolls back on the server; keep it off the disposing thread
+                closer.scheduleDirect(unclaimed::closeQuietly);
+            }
+        }
+    }
+
+    /**
+     * An open server-side cursor and the connection it belongs to.
+     */
+    private static final class Cursor {
+        private final DatabaseExecutor executor;
+        private final Connection conn;
+        private final PreparedStatement stmt;
+        private final ResultSet rs;
+
+        private Cursor(DatabaseExecutor executor, Connection conn, PreparedStatement stmt, ResultSet rs) {
+            this.executor = executor;
+            this.conn = conn;
+            this.stmt = stmt;
+            this.rs = rs;
+        }
+
+        static Cursor open(DatabaseExecutor executor, Connection conn,
+                           SqlFunction<Connection, PreparedStatement> prepare, int fetchSize) throws SQLException {
+            PreparedStatement stmt = null;
+            try {
+                // pgjdbc only uses a cursor when auto-commit is off and a fetch size is set
+                conn.setAutoCommit(false);
+                stmt = prepare.apply(conn);
+                stmt.setFetchSize(fetchSize);
+                return new Cursor(executor, conn, stmt, stmt.executeQuery());
+            } catch (SQLException | RuntimeException e) {
+                if (stmt != null) {
+                    stmt.close();
+                }
+                conn.rollback();
+                conn.setAutoCommit(true);
+                conn.close();
+                throw e;
+            }
+        }
+
+        void close() throws SQLException {
+            try (conn; stmt; rs) {
+                // Read-only; ending the transaction closes the cursor on the server
+                conn.rollback();
+                conn.setAutoCommit(true);
+            } finally {
+                executor.closeStream();
+            }
+        }
+
+        void closeQuietly() {
+            try {
+                close();
+            } catch (SQLException ignored) {
+                // The pool discards a connection that failed to reset
+            }
+        }
     }
 
     /**
      * Execute a database operation that doesn't return a value.
-     * Runs on IO thread pool.
+     * Runs on the database executor.
      *
      * @param operation the database operation to execute
-     * @return a Completable that completes on the main thread
+     * @return a Completable that completes on the database worker
      */
     public Completable execute(SqlConsumer<Connection> operation) {
-        return Completable.fromAction(() -> {
-            try (Connection conn = database.getConnection()) {
-                operation.accept(conn);
+        return query(conn -> {
+            operation.accept(conn);
+            return Boolean.TRUE;
+        }).ignoreElement();
+    }
+
+    /**
+     * Execute a unit of work in a single transaction on one connection.
+     * Commits if the operation returns normally, rolls back if it throws.
+     * Storage classes expose {@code ...Sync(Connection, ...)} methods so dependent
+     * steps can be composed inside one unit of work.
+     *
+     * @param operation the database operations to execute
+     * @param <T> the type of the result
+     * @return a Single that emits the result after commit
+     */
+    public <T> Single<T> transaction(SqlFunction<Connection, T> operation) {
+        return query(conn -> inTransaction(conn, operation));
+    }
+
+    /**
+     * Execute a unit of work in a single transaction that may or may not return a result.
+     *
+     * @param operation the database operations to execute (returns null if no result)
+     * @param <T> the type of the result
+     * @return a Maybe that emits the result after commit, or completes empty if null
+     */
+    public <T> Maybe<T> transactionMaybe(SqlFunction<Connection, T> operation) {
+        return queryMaybe(conn -> inTransaction(conn, operation));
+    }
+
+    /**
+     * Execute a unit of work in a single transaction that doesn't return a value.
+     *
+     * @param operation the database operations to execute
+     * @return a Completable that completes after commit
+     */
+    public Completable executeInTransaction(SqlConsumer<Connection> operation) {
+        return transaction(conn -> {
+            operation.accept(conn);
+            return Boolean.TRUE;
+        }).ignoreElement();
+    }
+
+    private static <T> T inTransaction(Connection conn, SqlFunction<Connection, T> operation) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            T result = operation.apply(conn);
+            conn.commit();
+            return result;
+        } catch (Throwable e) {
+            try {
+                conn.rollback();
+            } catch (SQLException rollbackError) {
+                // Keep the failure that caused the rollback
+                e.addSuppressed(rollbackError);
             }
-        })
-        .subscribeOn(Schedulers.io());
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * One cancellable unit of work: borrows a connection, runs the operation on it and,
+     * if the subscriber disposes while it runs, cancels the statement in flight so the
+     * connection goes back to the pool without waiting for Postgres to finish.
+     */
+    private final class Operation {
+        private final int timeoutSeconds;
+        private final boolean replica;
+        private CancellableConnection connection;
+        private boolean disposed;
+
+        Operation(Duration timeout, boolean replica) {
+            // setQueryTimeout only takes whole seconds; round up so short deadlines still apply
+            long seconds = timeout.toSeconds() + (timeout.toNanosPart() > 0 ? 1 : 0);
+            this.timeoutSeconds = (int) Math.min(seconds, Integer.MAX_VALUE);
+            this.replica = replica;
+        }
+
+        <T> T run(SqlFunction<Connection, T> operation) throws SQLException {
+            Connection pooled = replica ? database.getReplicaConnection() : database.getConnection();
+            try (CancellableConnection conn = new CancellableConnection(pooled, timeoutSeconds)) {
+                synchronized (this) {
+                    if (disposed) {
+                        conn.cancel();
+                    }
+                    connection = conn;
+                }
+                try {
+                    T result = operation.apply(conn);
+                    queriesCompleted.increment();
+                    return result;
+                } catch (SQLException e) {
+                    if (CancellableConnection.QUERY_CANCELED.equals(e.getSQLState())) {
+                        (conn.isCancelled() ? queriesCancelled : queriesTimedOut).increment();
+                    } else {
+                        queriesFailed.increment();
+                    }
+                    throw e;
+                } catch (RuntimeException e) {
+                    queriesFailed.increment();
+                    throw e;
+                } finally {
+                    conn.finish();
+                }
+            }
+        }
+
+        void dispose() {
+            CancellableConnection conn;
+            synchronized (this) {
+                disposed = true;
+                conn = connection;
+            }
+            if (conn != null) {
+                // Cancelling opens a socket to the server; keep that off the disposing thread
+                Schedulers.io().scheduleDirect(conn::cancel);
+            }
+        }
+    }
+
+    /**
+     * Returns how operations that reached the database ended.
+     */
+    public QueryStats queryStats() {
+        return new QueryStats(
+                queriesCompleted.sum(),
+                queriesFailed.sum(),
+                queriesCancelled.sum(),
+                queriesTimedOut.sum()
+        );
+    }
+
+    /**
+     * Returns per-statement latency, row and error metrics.
+     */
+    public QueryMetrics queryMetrics() {
+        return database.metrics();
+    }
+
+    /**
+     * Returns queue depth, wait and execution time metrics for the database executor.
+     */
+    public DatabaseExecutor.Stats executorStats() {
+        return executor.stats();
+    }
+
+    /**
+     * Returns read replica routing metrics, or null if no replica is configured.
+     */
+    public @Nullable ReplicaStats replicaStats() {
+        if (replicaExecutor == null) {
+            return null;
+        }
+        return new ReplicaStats(replicaExecutor.stats(), replicaReads.sum(), pinnedReads.sum(),
+                replicaDownReads.sum());
+    }
+
+    /**
+     * Create a write-behind queue that coalesces upserts per key and flushes them in batches
+     * every {@value #WRITE_BEHIND_INTERVAL_MS}ms, or sooner once {@code batchSize} keys are dirty.
+     * Queues are drained by {@link #drainWrites(long, TimeUnit)} on shutdown.
+     *
+     * @param name      name used in log messages
+     * @param writer    writes one batch of rows with a multi-row upsert
+     * @param batchSize maximum rows per statement
+     */
+    public <K, V> WriteBehindQueue<K, V> writeBehind(String name, WriteBehindQueue.BatchWriter<V> writer, int batchSize) {
+        var queue = new WriteBehindQueue<K, V>(name, this, writer, batchSize, logger);
+        writeBehindQueues.add(queue);
+        flushTimers.add(Flowable.interval(WRITE_BEHIND_INTERVAL_MS, TimeUnit.MILLISECONDS, Schedulers.computation())
+                .filter(tick -> queue.size() > 0)
+                .subscribe(tick -> queue.requestFlush()));
+        return queue;
+    }
+
+    /**
+     * Stop the flush timers and write out every buffered write on the calling thread,
+     * retrying failed flushes. Blocks for at most roughly the timeout; anything left after
+     * it is logged and dropped.
+     */
+    public void drainWrites(long timeout, TimeUnit unit) {
+        flushTimers.dispose();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (WriteBehindQueue<?, ?> queue : writeBehindQueues) {
+            long remaining = deadline - System.nanoTime();
+            try {
+                if (!queue.drain(Math.max(0, remaining), TimeUnit.NANOSECONDS)) {
+                    logger.warning("Write-behind drain timed out; dropping " + queue.size() + " buffered writes");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Runs a unit of work in one transaction on the calling thread, for work that is
+     * already running on a database worker, such as a write-behind flush. Counted in
+     * {@link #queryStats()} like any other operation.
+     */
+    void transactionSync(SqlConsumer<Connection> operation) throws SQLException {
+        new Operation(NO_TIMEOUT, false).run(conn -> inTransaction(conn, c -> {
+            operation.accept(c);
+            return Boolean.TRUE;
+        }));
+    }
+
+    /**
+     * Runs buffered work nobody is waiting on, such as a write-behind flush.
+     */
+    Completable runOnExecutor(Runnable work) {
+        return executor.single(Priority.BACKGROUND, () -> {
+            work.run();
+            return Boolean.TRUE;
+        }).ignoreElement();
     }
 }
@@ -0,0 +1,284 @@
+package sh.joey.mc.storage;
+
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.subjects.CompletableSubject;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Coalescing write-behind buffer for single-row upserts, created with
+ * {@link StorageService#writeBehind}.
+ * <p>
+ * Writes are buffered per key, a later write for a key replacing the earlier one, and
+ * flushed together by a {@link BatchWriter} as multi-row upserts: on a short interval,
+ * as soon as the buffer reaches the batch size, and when the plugin shuts down. Since
+ * keys are unique within a flush, a batch never hits the same conflict target twice.
+ * <p>
+ * {@link #pending(Object)} exposes buffered and in-flight values so reads for a dirty
+ * key can see them before they reach the database. Flushes of one queue never overlap,
+ * so a key's writes always land in order.
+ * <p>
+ * A flush commits in one transaction, so it lands entirely or not at all. Rows from a
+ * failed flush go back into the buffer (unless the key has been written again since) and
+ * are retried with the next flush; only after {@value #MAX_ATTEMPTS} failed attempts are
+ * they dropped and their writers told.
+ *
+ * @param <K> the key, matching the upsert's conflict target
+ * @param <V> the row to write
+ */
+public final class WriteBehindQueue<K, V> {
+
+    private static final int MAX_ATTEMPTS = 3;
+    // Pause between attempts while draining, which has no timer to space them out
+    private static final long DRAIN_RETRY_DELAY_MS = 100;
+
+    /**
+     * Writes a batch of rows, each with a distinct key.
+     */
+    @FunctionalInterface
+    public interface BatchWriter<V> {
+        void write(Connection conn, List<V> rows) throws SQLException;
+    }
+
+    private static final class Entry<V> {
+        V value;
+        // Failed flushes of this entry's current value
+        int attempts;
+        final CompletableSubject done = CompletableSubject.create();
+
+        Entry(V value) {
+            this.value = value;
+        }
+    }
+
+    private final String name;
+    private final StorageService storage;
+    private final BatchWriter<V> writer;
+    private final int batchSize;
+    private final Logger logger;
+
+    private final Object lock = new Object();
+    private final Map<K, Entry<V>> buffered = new LinkedHashMap<>();
+    private final Map<K, Entry<V>> inFlight = new HashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    WriteBehindQueue(String name, StorageService storage, BatchWriter<V> writer, int batchSize, Logger logger) {
+        this.name = name;
+        this.storage = storage;
+        this.writer = writer;
+        this.batchSize = batchSize;
+        this.logger = logger;
+    }
+
+    /**
+     * Buffer a write, replacing any buffered write for the same key.
+     *
+     * @return a Completable that completes once this value (or a later one for the key)
+     *         is committed, or errors if it is dropped after repeated failed flushes
+     */
+    public Completable put(K key, V value) {
+        Entry<V> entry;
+        boolean full;
+        synchronized (lock) {
+            entry = buffered.get(key);
+            if (entry == null) {
+                entry = new Entry<>(value);
+                buffered.put(key, entry);
+            } else {
+                entry.value = value;
+                entry.attempts = 0;
+            }
+            full = buffered.size() >= batchSize;
+        }
+        if (full) {
+            requestFlush();
+        }
+        return entry.done.hide();
+    }
+
+    /**
+     * Returns the newest value for a key that has not been committed yet, or null.
+     */
+    public @Nullable V pending(K key) {
+        synchronized (lock) {
+            Entry<V> entry = buffered.get(key);
+            if (entry == null) {
+                entry = inFlight.get(key);
+            }
+            return entry != null ? entry.value : null;
+        }
+    }
+
+    /**
+     * Returns the number of buffered writes not yet picked up by a flush.
+     */
+    public int size() {
+        synchronized (lock) {
+            return buffered.size();
+        }
+    }
+
+    /**
+     * Schedule a flush on the database executor unless one is already queued.
+     */
+    void requestFlush() {
+        if (!flushRequested.compareAndSet(false, true)) {
+            return;
+        }
+        storage.runOnExecutor(() -> {
+            flushRequested.set(false);
+            // A flush already running will be followed by the next tick
+            if (flushLock.tryLock()) {
+                try {
+                    flushLocked();
+                } finally {
+                    flushLock.unlock();
+                }
+            }
+        }).subscribe(() -> {}, err -> {
+            flushRequested.set(false);
+            logger.warning("Write-behind flush for " + name + " could not be scheduled: " + err.getMessage());
+        });
+    }
+
+    /**
+     * Flush everything on the calling thread, retrying failed rows like the timer does,
+     * for up to roughly the timeout.
+     *
+     * @return true if the buffer was empty when this returned
+     */
+    boolean drain(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (!flushLock.tryLock(timeout, unit)) {
+            return false;
+        }
+        try {
+            while (size() > 0) {
+                if (!flushLocked()) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.sleep(Math.min(remaining,
+                            TimeUnit.MILLISECONDS.toNanos(DRAIN_RETRY_DELAY_MS)));
+                }
+            }
+            return true;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * @return false if the flush failed and its rows were put back for another attempt
+     */
+    private boolean flushLocked() {
+        Map<K, Entry<V>> batch;
+        synchronized (lock) {
+            if (buffered.isEmpty()) {
+                return true;
+            }
+            batch = new LinkedHashMap<>(buffered);
+            buffered.clear();
+            inFlight.putAll(batch);
+        }
+
+        List<V> rows = new ArrayList<>(batch.size());
+        for (Entry<V> entry : batch.values()) {
+            rows.add(entry.value);
+        }
+        try {
+            storage.transactionSync(conn -> {
+                int offset = 0;
+                while (offset < rows.size()) {
+                    int count = chunkSize(rows.size() - offset);
+                    writer.write(conn, rows.subList(offset, offset + count));
+                    offset += count;
+                }
+            });
+        } catch (Throwable e) {
+            requeue(batch, e);
+            return false;
+        }
+
+        synchronized (lock) {
+            batch.forEach(inFlight::remove);
+        }
+        for (Entry<V> entry : batch.values()) {
+            entry.done.onComplete();
+        }
+        return true;
+    }
+
+    /**
+     * Puts a failed batch back into the buffer. A key written again since the flush began
+     * keeps the newer value, and the failed entry completes along with it. Entries out of
+     * attempts are dropped and errored.
+     */
+    private void requeue(Map<K, Entry<V>> batch, Throwable error) {
+        List<Entry<V>> dropped = new ArrayList<>();
+        List<Entry<V>> superseded = new ArrayList<>();
+        List<Entry<V>> newer = new ArrayList<>();
+        synchronized (lock) {
+            for (Map.Entry<K, Entry<V>> e : batch.entrySet()) {
+                K key = e.getKey();
+                Entry<V> entry = e.getValue();
+                inFlight.remove(key);
+                Entry<V> latest = buffered.get(key);
+                if (latest != null) {
+                    superseded.add(entry);
+                    newer.add(latest);
+                } else if (++entry.attempts >= MAX_ATTEMPTS) {
+                    dropped.add(entry);
+                } else {
+                    buffered.put(key, entry);
+                }
+            }
+        }
+
+        int retried = batch.size() - dropped.size() - superseded.size();
+        logger.warning("Write-behind flush for " + name + " failed (" + batch.size() + " rows, "
+                + retried + " to retry, " + dropped.size() + " dropped): " + error.getMessage());
+        for (int i = 0; i < superseded.size(); i++) {
+            newer.get(i).done.subscribe(superseded.get(i).done);
+        }
+        for (Entry<V> entry : dropped) {
+            entry.done.onError(error);
+        }
+    }
+
+    /**
+     * Splits a flush into full batches and then power-of-two chunks, so a queue only ever
+     * produces a handful of distinct statements (e.g. 100, 64, 32, ..., 1 rows). Each
+     * stays in the driver's per-connection statement cache and server-side prepared,
+     * where one statement per row count would churn the cache.
+     */
+    private int chunkSize(int remaining) {
+        return Math.min(batchSize, Integer.highestOneBit(remaining));
+    }
+
+    /**
+     * Builds the VALUES list for a multi-row insert, e.g. {@code rows("(?, ?)", 3)}
+     * gives {@code (?, ?), (?, ?), (?, ?)}.
+     */
+    public static String rows(String row, int count) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (int i = 0; i < count; i++) {
+            joiner.add(row);
+        }
+        return joiner.toString();
+    }
+}
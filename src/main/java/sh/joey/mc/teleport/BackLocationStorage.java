@@ -3,28 +3,44 @@ package sh.joey.mc.teleport;
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.Maybe;
 import sh.joey.mc.storage.StorageService;
+import sh.joey.mc.storage.WriteBehindQueue;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
 import java.util.UUID;
 
 /**
  * Handles persistence of back locations (death or teleport-from) to PostgreSQL.
  * Each player has at most one back location - the most recent.
  * All operations are async and return RxJava types.
+ * <p>
+ * Saves go through a write-behind queue, so several saves for a player in quick
+ * succession become one row write. Reads see saves not yet written.
  */
 public final class BackLocationStorage {
 
+    private static final int BATCH_SIZE = 100;
+
     private final StorageService storage;
+    private final WriteBehindQueue<UUID, BackLocation> writes;
 
     public BackLocationStorage(StorageService storage) {
         this.storage = storage;
+        this.writes = storage.writeBehind("back_locations", BackLocationStorage::writeLocations, BATCH_SIZE);
     }
 
     /**
      * Get the back location for a player.
      */
     public Maybe<BackLocation> getBackLocation(UUID playerId) {
+        BackLocation pending = writes.pending(playerId);
+        if (pending != null) {
+            return Maybe.just(pending);
+        }
+
         return storage.queryMaybe(conn -> {
             String sql = """
                 SELECT player_id, location_type, world_id, x, y, z, pitch, yaw
@@ -49,36 +65,41 @@ public final class BackLocationStorage {
      * Save or update a back location.
      */
     public Completable saveLocation(BackLocation location) {
-        return storage.execute(conn -> {
-            String sql = """
-                INSERT INTO back_locations (player_id, location_type, world_id, x, y, z, pitch, yaw)
-                VALUES (?, ?, ?, ?, ?, ?, ?, ?)
-                ON CONFLICT (player_id)
-                DO UPDATE SET location_type = EXCLUDED.location_type,
-                              world_id = EXCLUDED.world_id,
-                              x = EXCLUDED.x,
-                              y = EXCLUDED.y,
-                              z = EXCLUDED.z,
-                              pitch = EXCLUDED.pitch,
-                              yaw = EXCLUDED.yaw,
-                              created_at = NOW()
-                """;
+        return writes.put(location.playerId(), location);
+    }
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setObject(1, location.playerId());
-                stmt.setString(2, location.type().toDbValue());
-                stmt.setObject(3, location.worldId());
-                stmt.setDouble(4, location.x());
-                stmt.setDouble(5, location.y());
-                stmt.setDouble(6, location.z());
-                stmt.setFloat(7, location.pitch());
-                stmt.setFloat(8, location.yaw());
-                stmt.executeUpdate();
+    private static void writeLocations(Connection conn, List<BackLocation> rows) throws SQLException {
+        String sql = """
+            INSERT INTO back_locations (player_id, location_type, world_id, x, y, z, pitch, yaw)
+            VALUES %s
+            ON CONFLICT (player_id)
+            DO UPDATE SET location_type = EXCLUDED.location_type,
+                          world_id = EXCLUDED.world_id,
+                          x = EXCLUDED.x,
+                          y = EXCLUDED.y,
+                          z = EXCLUDED.z,
+                          pitch = EXCLUDED.pitch,
+                          yaw = EXCLUDED.yaw,
+                          created_at = NOW()
+            """.formatted(WriteBehindQueue.rows("(?, ?, ?, ?, ?, ?, ?, ?)", rows.size()));
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int i = 1;
+            for (BackLocation location : rows) {
+                stmt.setObject(i++, location.playerId());
+                stmt.setString(i++, location.type().toDbValue());
+                stmt.setObject(i++, location.worldId());
+                stmt.setDouble(i++, location.x());
+                stmt.setDouble(i++, location.y());
+                stmt.setDouble(i++, location.z());
+                stmt.setFloat(i++, location.pitch());
+                stmt.setFloat(i++, location.yaw());
             }
-        });
+            stmt.executeUpdate();
+        }
     }
 
-    private BackLocation readBackLocation(ResultSet rs) throws java.sql.SQLException {
+    private BackLocation readBackLocation(ResultSet rs) throws SQLException {
         return new BackLocation(
                 rs.getObject("player_id", UUID.class),
                 BackLocation.LocationType.fromDbValue(rs.getString("location_type")),
@@ -5,10 +5,13 @@ import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.subjects.PublishSubject;
+import io.reactivex.rxjava3.subjects.Subject;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.jetbrains.annotations.Nullable;
+import sh.joey.mc.storage.InvalidationBus;
+import sh.joey.mc.storage.InvalidationBus.Channel;
 import sh.joey.mc.storage.StorageService;
 
 import java.util.ArrayList;
@@ -20,15 +23,32 @@ import java.util.UUID;
  */
 public final class SpawnStorage {
 
+    // Replica reads of the spawn list stay on the primary briefly after any spawn changes
+    private static final String REPLICA_SUBJECT = "spawns";
+    private static final Channel<UUID> SPAWN_CHANGED = Channel.ofUuid("smp_spawn");
+
     private final StorageService storage;
-    private final PublishSubject<UUID> changeSubject = PublishSubject.create();
+    private final InvalidationBus bus;
+    private final Subject<UUID> changeSubject = PublishSubject.<UUID>create().toSerialized();
 
-    public SpawnStorage(StorageService storage) {
+    public SpawnStorage(StorageService storage, InvalidationBus bus) {
         this.storage = storage;
+        this.bus = bus;
+        // Lives as long as the bus, which completes these on dispose
+        bus.on(SPAWN_CHANGED).subscribe(worldId -> {
+            // Listeners reload the list, which the replica may not have caught up on yet
+            storage.markWritten(REPLICA_SUBJECT);
+            changeSubject.onNext(worldId);
+        });
+        bus.resyncs().subscribe(missed -> {
+            storage.markWritten(REPLICA_SUBJECT);
+            Bukkit.getWorlds().forEach(world -> changeSubject.onNext(world.getUID()));
+        });
     }
 
     /**
-     * Observable that emits the world UUID whenever a spawn point is added or updated.
+     * Observable that emits the world UUID whenever a spawn point is added or updated,
+     * here or on another server.
      */
     public Observable<UUID> onChanged() {
         return changeSubject.hide();
@@ -64,7 +84,7 @@ public final class SpawnStorage {
     }
 
     public Flowable<SpawnPoint> getAllSpawns() {
-        return storage.queryFlowable(conn -> {
+        return storage.readQueryFlowable(REPLICA_SUBJECT, conn -> {
             List<SpawnPoint> spawns = new ArrayList<>();
             try (var stmt = conn.prepareStatement(
                     "SELECT world_id, x, y, z, yaw, pitch FROM world_spawns")) {
@@ -107,6 +127,10 @@ public final class SpawnStorage {
                 stmt.setObject(7, setBy);
                 stmt.executeUpdate();
             }
-        }).doOnComplete(() -> changeSubject.onNext(worldId));
+            storage.markWritten(REPLICA_SUBJECT);
+        }).doOnComplete(() -> {
+            changeSubject.onNext(worldId);
+            bus.publish(SPAWN_CHANGED, worldId);
+        });
     }
 }
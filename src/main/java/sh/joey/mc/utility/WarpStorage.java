@@ -6,10 +6,13 @@ import io.reactivex.rxjava3.core.Maybe;
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Single;
 import io.reactivex.rxjava3.subjects.PublishSubject;
+import io.reactivex.rxjava3.subjects.Subject;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.jetbrains.annotations.Nullable;
+import sh.joey.mc.storage.InvalidationBus;
+import sh.joey.mc.storage.InvalidationBus.Channel;
 import sh.joey.mc.storage.StorageService;
 
 import java.sql.ResultSet;
@@ -23,15 +26,33 @@ import java.util.UUID;
  */
 public final class WarpStorage {
 
+    // Replica reads of the warp list stay on the primary briefly after any warp changes
+    private static final String REPLICA_SUBJECT = "warps";
+    private static final Channel<String> WARP_CHANGED = Channel.ofString("smp_warp");
+    // Emitted when changes may have been missed
+    private static final String ALL_WARPS = "*";
+
     private final StorageService storage;
-    private final PublishSubject<String> changeSubject = PublishSubject.create();
+    private final InvalidationBus bus;
+    private final Subject<String> changeSubject = PublishSubject.<String>create().toSerialized();
 
-    public WarpStorage(StorageService storage) {
+    public WarpStorage(StorageService storage, InvalidationBus bus) {
         this.storage = storage;
+        this.bus = bus;
+        // Lives as long as the bus, which completes these on dispose
+        bus.on(WARP_CHANGED).subscribe(this::remoteChanged);
+        bus.resyncs().subscribe(missed -> remoteChanged(ALL_WARPS));
+    }
+
+    private void remoteChanged(String name) {
+        // Listeners reload the list, which the replica may not have caught up on yet
+        storage.markWritten(REPLICA_SUBJECT);
+        changeSubject.onNext(name);
     }
 
     /**
-     * Observable that emits the warp name whenever a warp is added, updated, or deleted.
+     * Observable that emits the warp name whenever a warp is added, updated, or deleted,
+     * here or on another server, or {@code "*"} after remote changes may have been missed.
      */
     public Observable<String> onChanged() {
         return changeSubject.hide();
@@ -60,7 +81,7 @@ public final class WarpStorage {
     }
 
     public Flowable<Warp> getAllWarps() {
-        return storage.queryFlowable(conn -> {
+        return storage.readQueryFlowable(REPLICA_SUBJECT, conn -> {
             List<Warp> warps = new ArrayList<>();
             try (var stmt = conn.prepareStatement(
                     "SELECT name, world_id, x, y, z, yaw, pitch, created_by FROM warps ORDER BY name")) {
@@ -97,7 +118,11 @@ public final class WarpStorage {
                 stmt.setObject(8, createdBy);
                 stmt.executeUpdate();
             }
-        }).doOnComplete(() -> changeSubject.onNext(name.toLowerCase()));
+            storage.markWritten(REPLICA_SUBJECT);
+        }).doOnComplete(() -> {
+            changeSubject.onNext(name.toLowerCase());
+            bus.publish(WARP_CHANGED, name.toLowerCase());
+        });
     }
 
     public Single<Boolean> deleteWarp(String name) {
@@ -105,10 +130,15 @@ public final class WarpStorage {
         return storage.<Boolean>query(conn -> {
             try (var stmt = conn.prepareStatement("DELETE FROM warps WHERE name = ?")) {
                 stmt.setString(1, normalizedName);
-                return stmt.executeUpdate() > 0;
+                boolean deleted = stmt.executeUpdate() > 0;
+                storage.markWritten(REPLICA_SUBJECT);
+                return deleted;
             }
         }).doOnSuccess(deleted -> {
-            if (deleted) changeSubject.onNext(normalizedName);
+            if (deleted) {
+                changeSubject.onNext(normalizedName);
+                bus.publish(WARP_CHANGED, normalizedName);
+            }
         });
     }
 
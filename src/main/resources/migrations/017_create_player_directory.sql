@@ -0,0 +1,43 @@
+-- Player directory: one row per player with their current username
+-- Maintained on join (and touched on disconnect) instead of being derived from the full
+-- session history, so name lookups and home owner joins don't scale with player_sessions
+
+CREATE TABLE player_directory (
+    player_id UUID PRIMARY KEY,
+    username VARCHAR(16) NOT NULL,
+    username_lower VARCHAR(16) GENERATED ALWAYS AS (LOWER(username)) STORED,
+    online_mode BOOLEAN NOT NULL,
+    first_seen TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    last_seen TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+-- Index for case-insensitive username lookups: findPlayerIdByName(), usernameExists()
+-- varchar_pattern_ops also serves the LIKE 'prefix%' scan in findUsernamesByPrefix()
+CREATE INDEX idx_player_directory_username
+    ON player_directory(username_lower varchar_pattern_ops);
+
+-- Backfill from session history: latest session's name and mode, earliest and latest activity
+INSERT INTO player_directory (player_id, username, online_mode, first_seen, last_seen)
+SELECT latest.player_id, latest.username, latest.online_mode, span.first_seen, span.last_seen
+FROM (
+    SELECT DISTINCT ON (player_id) player_id, username, online_mode
+    FROM player_sessions
+    ORDER BY player_id, connected_at DESC
+) latest
+JOIN (
+    SELECT player_id,
+           MIN(connected_at) AS first_seen,
+           MAX(COALESCE(disconnected_at, last_seen_at)) AS last_seen
+    FROM player_sessions
+    GROUP BY player_id
+) span ON span.player_id = latest.player_id;
+
+-- Keep player_names (and player_display_names built on it) for ad-hoc queries,
+-- now reading the directory rather than scanning every session
+CREATE OR REPLACE VIEW player_names AS
+SELECT
+    player_id,
+    online_mode,
+    username,
+    last_seen AS updated_at
+FROM player_directory;
@@ -0,0 +1,35 @@
+-- Online time rollup: one row per player instead of summing every session on each read
+-- closed_seconds grows as sessions close; open_seconds is the time in sessions still open
+-- as of the last heartbeat, so the leaderboard includes players who are online right now
+
+CREATE TABLE player_online_totals (
+    player_id UUID PRIMARY KEY,
+    closed_seconds BIGINT NOT NULL DEFAULT 0,
+    open_seconds BIGINT NOT NULL DEFAULT 0,
+    total_seconds BIGINT GENERATED ALWAYS AS (closed_seconds + open_seconds) STORED,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+-- Index for the /ontime top leaderboard: ORDER BY total_seconds DESC LIMIT n
+CREATE INDEX idx_player_online_totals_total
+    ON player_online_totals(total_seconds DESC);
+
+-- Backfill from session history
+INSERT INTO player_online_totals (player_id, closed_seconds, open_seconds)
+SELECT
+    player_id,
+    COALESCE(EXTRACT(EPOCH FROM SUM(disconnected_at - connected_at)
+        FILTER (WHERE disconnected_at IS NOT NULL))::bigint, 0),
+    COALESCE(EXTRACT(EPOCH FROM SUM(last_seen_at - connected_at)
+        FILTER (WHERE disconnected_at IS NULL))::bigint, 0)
+FROM player_sessions
+GROUP BY player_id;
+
+-- Keep player_online_time for ad-hoc queries, now reading the rollup
+CREATE OR REPLACE VIEW player_online_time AS
+SELECT
+    t.player_id,
+    d.online_mode,
+    make_interval(secs => t.total_seconds) AS online_time
+FROM player_online_totals t
+JOIN player_directory d ON d.player_id = t.player_id;
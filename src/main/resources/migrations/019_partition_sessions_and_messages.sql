@@ -0,0 +1,152 @@
+-- Monthly range partitioning for the two append-only tables: player_sessions by connected_at
+-- and private_messages by created_at. Queries that bound the partition key only touch the
+-- months they need, and an old month can be detached with
+-- ALTER TABLE ... DETACH PARTITION ... CONCURRENTLY (no default partition, so that stays possible).
+
+-- Creates the missing monthly partitions of parent (named parent_pYYYY_MM) from from_month
+-- through months_ahead months past the current one. Month boundaries are UTC so every
+-- server computes the same bounds. Returns the number of partitions created.
+-- The plugin calls this on startup and daily, so inserts always have a partition to land in.
+CREATE FUNCTION create_monthly_partitions(parent TEXT, from_month DATE, months_ahead INT)
+RETURNS INT
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    cur_month DATE := date_trunc('month', from_month)::date;
+    last_month DATE := (date_trunc('month', NOW() AT TIME ZONE 'UTC')
+                        + make_interval(months => months_ahead))::date;
+    partition_name TEXT;
+    created INT := 0;
+BEGIN
+    WHILE cur_month <= last_month LOOP
+        partition_name := format('%s_p%s', parent, to_char(cur_month, 'YYYY_MM'));
+        IF to_regclass(partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                partition_name, parent,
+                cur_month::timestamp AT TIME ZONE 'UTC',
+                (cur_month + INTERVAL '1 month')::timestamp AT TIME ZONE 'UTC');
+            created := created + 1;
+        END IF;
+        cur_month := (cur_month + INTERVAL '1 month')::date;
+    END LOOP;
+    RETURN created;
+END;
+$$;
+
+-- player_sessions
+
+ALTER TABLE player_sessions RENAME TO player_sessions_unpartitioned;
+
+-- The partition key has to be part of the primary key
+CREATE TABLE player_sessions (
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
+    player_id UUID NOT NULL,
+    username VARCHAR(16) NOT NULL,
+    connected_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    remote_ip TEXT NOT NULL,
+    online_mode BOOLEAN NOT NULL,
+    server_session_id UUID NOT NULL,
+    last_seen_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    disconnected_at TIMESTAMPTZ
+) PARTITION BY RANGE (connected_at);
+
+SELECT create_monthly_partitions('player_sessions',
+    COALESCE((SELECT MIN(connected_at) AT TIME ZONE 'UTC' FROM player_sessions_unpartitioned), NOW() AT TIME ZONE 'UTC')::date,
+    3);
+
+INSERT INTO player_sessions (id, player_id, username, connected_at, remote_ip, online_mode,
+                             server_session_id, last_seen_at, disconnected_at)
+SELECT id, player_id, username, connected_at, remote_ip, online_mode,
+       server_session_id, last_seen_at, disconnected_at
+FROM player_sessions_unpartitioned;
+
+-- player_name_history is the only view still reading the old table
+DROP VIEW player_name_history;
+DROP TABLE player_sessions_unpartitioned;
+
+-- Indexes are created on the parent after the copy and cascade to every partition,
+-- including ones created later
+ALTER TABLE player_sessions ADD PRIMARY KEY (id, connected_at);
+
+-- Index for heartbeat UPDATE: WHERE server_session_id = ? AND disconnected_at IS NULL
+CREATE INDEX idx_player_sessions_active
+    ON player_sessions(server_session_id)
+    WHERE disconnected_at IS NULL;
+
+-- Index for disconnect UPDATE and open-session time: WHERE player_id = ? AND disconnected_at IS NULL
+CREATE INDEX idx_player_sessions_player_active
+    ON player_sessions(player_id, server_session_id)
+    WHERE disconnected_at IS NULL;
+
+-- Index for player history queries: ORDER BY player_id, connected_at DESC
+CREATE INDEX idx_player_sessions_player_time
+    ON player_sessions(player_id, connected_at DESC);
+
+-- Index for case-insensitive username history lookups
+CREATE INDEX idx_player_sessions_username
+    ON player_sessions(LOWER(username), connected_at DESC);
+
+-- Unchanged from 005
+CREATE VIEW player_name_history AS
+SELECT
+    player_id,
+    online_mode,
+    username,
+    MIN(connected_at) AS "from",
+    NULLIF(MAX(next_connected), MAX(connected_at)) AS "until"
+FROM (
+    SELECT
+        player_id,
+        online_mode,
+        username,
+        connected_at,
+        next_connected,
+        SUM(name_changed) OVER (PARTITION BY player_id ORDER BY connected_at) AS name_group
+    FROM (
+        SELECT
+            player_id,
+            online_mode,
+            username,
+            connected_at,
+            LEAD(connected_at) OVER w AS next_connected,
+            CASE WHEN username != LAG(username) OVER w THEN 1 ELSE 0 END AS name_changed
+        FROM player_sessions
+        WINDOW w AS (PARTITION BY player_id ORDER BY connected_at)
+    ) with_lag
+) with_groups
+GROUP BY player_id, online_mode, username, name_group;
+
+-- private_messages
+
+ALTER TABLE private_messages RENAME TO private_messages_unpartitioned;
+
+CREATE TABLE private_messages (
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
+    sender_id UUID NOT NULL,
+    recipient_id UUID NOT NULL,
+    content TEXT NOT NULL,
+    read_at TIMESTAMPTZ,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+) PARTITION BY RANGE (created_at);
+
+SELECT create_monthly_partitions('private_messages',
+    COALESCE((SELECT MIN(created_at) AT TIME ZONE 'UTC' FROM private_messages_unpartitioned), NOW() AT TIME ZONE 'UTC')::date,
+    3);
+
+INSERT INTO private_messages (id, sender_id, recipient_id, content, read_at, created_at)
+SELECT id, sender_id, recipient_id, content, read_at, created_at
+FROM private_messages_unpartitioned;
+
+DROP TABLE private_messages_unpartitioned;
+
+ALTER TABLE private_messages ADD PRIMARY KEY (id, created_at);
+
+-- Find unread messages for a player (join delivery)
+CREATE INDEX idx_private_messages_recipient_unread
+    ON private_messages(recipient_id, created_at ASC)
+    WHERE read_at IS NULL;
+
+-- Count sender's pending messages to a recipient (for max limit)
+CREATE INDEX idx_private_messages_sender_recipient_unread
+    ON private_messages(sender_id, recipient_id)
+    WHERE read_at IS NULL;
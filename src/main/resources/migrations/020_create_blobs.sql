@@ -0,0 +1,39 @@
+-- Content-addressed blob store
+-- Blobs are keyed by the SHA-256 of their uncompressed content, so identical payloads
+-- (an unchanged ender chest across world hops) are stored once and shared
+
+CREATE TABLE blobs (
+    hash BYTEA PRIMARY KEY,
+    -- Deflate-compressed, or stored as-is when compression doesn't shrink it
+    compressed BOOLEAN NOT NULL,
+    raw_size INT NOT NULL,
+    data BYTEA NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+-- Data is already compressed; don't let TOAST try again
+ALTER TABLE blobs ALTER COLUMN data SET STORAGE EXTERNAL;
+
+-- Snapshots reference blobs by hash. The *_data columns only hold rows written before
+-- this migration until the plugin moves them into blobs in the background.
+-- The foreign keys keep a blob from being deleted while a snapshot still uses it.
+ALTER TABLE inventory_snapshots
+    ADD COLUMN inventory_hash BYTEA REFERENCES blobs(hash),
+    ADD COLUMN armor_hash BYTEA REFERENCES blobs(hash),
+    ADD COLUMN offhand_hash BYTEA REFERENCES blobs(hash),
+    ADD COLUMN ender_chest_hash BYTEA REFERENCES blobs(hash),
+    ALTER COLUMN inventory_data DROP NOT NULL,
+    ALTER COLUMN armor_data DROP NOT NULL,
+    ALTER COLUMN offhand_data DROP NOT NULL,
+    ALTER COLUMN ender_chest_data DROP NOT NULL;
+
+-- For the background migration: rows still embedding their bytes (empty once it finishes)
+CREATE INDEX idx_snapshots_unmigrated
+    ON inventory_snapshots(id)
+    WHERE inventory_hash IS NULL;
+
+-- For the foreign key checks and the sweep of blobs no snapshot references
+CREATE INDEX idx_snapshots_inventory_hash ON inventory_snapshots(inventory_hash);
+CREATE INDEX idx_snapshots_armor_hash ON inventory_snapshots(armor_hash);
+CREATE INDEX idx_snapshots_offhand_hash ON inventory_snapshots(offhand_hash);
+CREATE INDEX idx_snapshots_ender_chest_hash ON inventory_snapshots(ender_chest_hash);